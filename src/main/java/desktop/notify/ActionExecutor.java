@@ -0,0 +1,294 @@
+/*
+ * DS Desktop Notify
+ * A small utility to show small notifications in your Desktop anytime!
+ */
+package desktop.notify;
+
+import java.awt.EventQueue;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the actions of the notifications that get clicked, away from the
+ * painting thread and the EDT, so a slow action doesn't freeze the
+ * notifications or the application.
+ * <p>
+ * On Java 21 and later every action gets a virtual thread of its own.
+ * Otherwise they run on a small pool of daemon threads, which go away after
+ * a while without work. Either way, only so many actions may be waiting or
+ * running at once: past that limit, clicks are ignored and counted as
+ * rejected. An action that takes longer than its timeout is interrupted. The
+ * ones that need to run on the EDT can still ask for it, one by one.
+ *
+ * @author DragShot
+ */
+class ActionExecutor {
+
+    /**
+     * <code>Executors.newVirtualThreadPerTaskExecutor()</code>, if this Java
+     * version has it.
+     */
+    private static final Method VIRTUAL = findVirtual();
+
+    private final boolean virtual;
+    private volatile int threads = Math.max(2, Math.min(Runtime.getRuntime().availableProcessors(), 4));
+    private volatile int queueLimit = 64;
+    private volatile long timeout = 30000L;
+    private ExecutorService executor;
+
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * Creates an executor that uses virtual threads when available.
+     */
+    ActionExecutor() {
+        this(true);
+    }
+
+    /**
+     * Creates an executor.
+     *
+     * @param allowVirtual <code>false</code> to always use a pool of threads.
+     */
+    ActionExecutor(boolean allowVirtual) {
+        virtual = allowVirtual && VIRTUAL != null;
+    }
+
+    private static Method findVirtual() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException | SecurityException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Runs the action of a notification.
+     *
+     * @param action  The action.
+     * @param event   The event to give it.
+     * @param timeout The time the action may take, in milliseconds, or 0 to
+     *                use the default one.
+     * @param onEdt   <code>true</code> to run it on the EDT instead. There's no
+     *                timeout nor limit in that case.
+     * @return <code>false</code> if the action was rejected because too many
+     * of them are waiting already.
+     */
+    boolean execute(ActionListener action, ActionEvent event, long timeout, boolean onEdt) {
+        if (onEdt) {
+            EventQueue.invokeLater(() -> {
+                try {
+                    action.actionPerformed(event);
+                    executed.incrementAndGet();
+                } catch (RuntimeException | Error ex) {
+                    failed.incrementAndGet();
+                    throw ex;
+                }
+            });
+            return true;
+        }
+        int n;
+        do {
+            n = pending.get();
+            if (n >= queueLimit) {
+                rejected.incrementAndGet();
+                return false;
+            }
+        } while (!pending.compareAndSet(n, n + 1));
+        try {
+            getExecutor().execute(new Task(action, event, timeout > 0 ? timeout : this.timeout));
+        } catch (RuntimeException ex) {
+            pending.decrementAndGet();
+            rejected.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    private synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            if (virtual) {
+                try {
+                    executor = (ExecutorService) VIRTUAL.invoke(null);
+                    return executor;
+                } catch (ReflectiveOperationException | RuntimeException ex) {
+                    //Fall back to the pool
+                }
+            }
+            AtomicInteger count = new AtomicInteger();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 30L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), r -> {
+                Thread t = new Thread(r, "DesktopNotify Action Thread-" + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+            pool.allowCoreThreadTimeOut(true);
+            executor = pool;
+        }
+        return executor;
+    }
+
+    /**
+     * An action on its way, which can be interrupted once.
+     */
+    private final class Task implements Runnable {
+        private static final int RUNNING = 0, DONE = 1, EXPIRING = 2, EXPIRED = 3;
+
+        private final ActionListener action;
+        private final ActionEvent event;
+        private final long timeout;
+        private final AtomicInteger state = new AtomicInteger(RUNNING);
+        private volatile Thread runner;
+
+        Task(ActionListener action, ActionEvent event, long timeout) {
+            this.action = action;
+            this.event = event;
+            this.timeout = timeout;
+        }
+
+        @Override
+        public void run() {
+            runner = Thread.currentThread();
+            ScheduledFuture<?> watch = timeout == Long.MAX_VALUE ? null
+                    : Watchdog.EXECUTOR.schedule(this::expire, timeout, TimeUnit.MILLISECONDS);
+            try {
+                action.actionPerformed(event);
+                executed.incrementAndGet();
+            } catch (Throwable ex) {
+                failed.incrementAndGet();
+                Thread t = Thread.currentThread();
+                t.getUncaughtExceptionHandler().uncaughtException(t, ex);
+            } finally {
+                if (watch != null) watch.cancel(false);
+                if (!state.compareAndSet(RUNNING, DONE)) {
+                    //Don't let the interrupt leak into the next action
+                    while (state.get() == EXPIRING) Thread.yield();
+                    Thread.interrupted();
+                }
+                pending.decrementAndGet();
+            }
+        }
+
+        private void expire() {
+            if (state.compareAndSet(RUNNING, EXPIRING)) {
+                timedOut.incrementAndGet();
+                runner.interrupt();
+                state.set(EXPIRED);
+            }
+        }
+    }
+
+    /**
+     * The thread that interrupts the actions past their timeout, created on
+     * first use.
+     */
+    private static final class Watchdog {
+        static final ScheduledThreadPoolExecutor EXECUTOR = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "DesktopNotify Action Watchdog");
+            t.setDaemon(true);
+            return t;
+        });
+
+        static {
+            //Most actions finish in time, don't keep their timeouts around
+            EXECUTOR.setRemoveOnCancelPolicy(true);
+        }
+    }
+
+    /**
+     * @return <code>true</code> if the actions run on virtual threads.
+     */
+    boolean isVirtual() {
+        return virtual;
+    }
+
+    int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Sets the amount of threads in the pool. Makes no difference with
+     * virtual threads.
+     *
+     * @param threads The amount of threads.
+     */
+    synchronized void setThreads(int threads) {
+        threads = Math.max(threads, 1);
+        this.threads = threads;
+        if (executor instanceof ThreadPoolExecutor) {
+            ThreadPoolExecutor pool = (ThreadPoolExecutor) executor;
+            if (threads > pool.getMaximumPoolSize()) {
+                pool.setMaximumPoolSize(threads);
+                pool.setCorePoolSize(threads);
+            } else {
+                pool.setCorePoolSize(threads);
+                pool.setMaximumPoolSize(threads);
+            }
+        }
+    }
+
+    int getQueueLimit() {
+        return queueLimit;
+    }
+
+    void setQueueLimit(int queueLimit) {
+        this.queueLimit = Math.max(queueLimit, 1);
+    }
+
+    long getTimeout() {
+        return timeout;
+    }
+
+    void setTimeout(long timeout) {
+        this.timeout = timeout <= 0 ? Long.MAX_VALUE : timeout;
+    }
+
+    /**
+     * @return The amount of actions waiting or running.
+     */
+    int getPendingCount() {
+        return pending.get();
+    }
+
+    /**
+     * @return The amount of actions that finished without errors.
+     */
+    long getExecutedCount() {
+        return executed.get();
+    }
+
+    /**
+     * @return The amount of actions that threw an exception.
+     */
+    long getFailedCount() {
+        return failed.get();
+    }
+
+    /**
+     * @return The amount of actions interrupted for taking too long.
+     */
+    long getTimedOutCount() {
+        return timedOut.get();
+    }
+
+    /**
+     * @return The amount of actions not run because too many were waiting.
+     */
+    long getRejectedCount() {
+        return rejected.get();
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ * DS Desktop Notify
+ * A small utility to show small notifications in your Desktop anytime!
+ */
+package desktop.notify;
+
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * Keeps a picture of the desktop behind a notifications window, for the fake
+ * translucency effect used when the system can't do the real thing.
+ * <p>
+ * The area of the window is split in horizontal tiles of {@link #TILE}
+ * pixels. Only the tiles behind the notifications are painted, and a tile is
+ * captured right before the notifications grow over it. The window is meant
+ * to be shaped to the area of the notifications, so the rest of it shows the
+ * actual desktop and can be captured at any time: a background thread keeps
+ * the tiles right above the notifications fresh, as far as the memory cap
+ * allows, so they are ready when the stack grows. The tiles behind the
+ * notifications can't be refreshed, since the notifications are in the way.
+ * <p>
+ * When the window can't be shaped, nothing can be captured while it is
+ * visible, and the whole window shows whatever is painted on it. In that
+ * case, every tile is captured right before showing it, regardless of the
+ * memory cap, and every tile is painted.
+ *
+ * @author DragShot
+ */
+class BackgroundCapture {
+
+    /**
+     * The height of the tiles, in pixels.
+     */
+    static final int TILE = 64;
+
+    private static volatile long interval = 2000L;
+    private static volatile long memoryCap = 4L << 20;
+
+    private static final AtomicLong captures = new AtomicLong();
+    private static final AtomicLong captureNanos = new AtomicLong();
+    private static final AtomicLong captureBytes = new AtomicLong();
+    private static final AtomicLong heldBytes = new AtomicLong();
+
+    /**
+     * A part of the desktop, and when it was captured.
+     */
+    private static final class Tile {
+        final BufferedImage image;
+        final long time;
+
+        Tile(BufferedImage image, long time) {
+            this.image = image;
+            this.time = time;
+        }
+
+        long bytes() {
+            return 4L * image.getWidth() * image.getHeight();
+        }
+    }
+
+    private final Function<Rectangle, BufferedImage> grabber;
+    /**
+     * <code>true</code> if the window only covers the area of the
+     * notifications, so the rest of its area can be captured while visible.
+     */
+    private final boolean live;
+    private volatile Rectangle bounds = new Rectangle();
+    private volatile AtomicReferenceArray<Tile> tiles = new AtomicReferenceArray<>(0);
+    /**
+     * Where the area covered by notifications begins, from the top of the
+     * window.
+     */
+    private volatile int top = Integer.MAX_VALUE;
+    private ScheduledFuture<?> task;
+
+    /**
+     * Creates a capture for a window.
+     *
+     * @param grabber Captures an area of the desktop.
+     * @param live    <code>true</code> if the window is shaped to the area of
+     *                the notifications.
+     */
+    BackgroundCapture(Function<Rectangle, BufferedImage> grabber, boolean live) {
+        this.grabber = grabber;
+        this.live = live;
+    }
+
+    /**
+     * Sets the area of the desktop taken by the window, discarding the tiles
+     * captured if it moved. To be called while the window is hidden.
+     *
+     * @param bounds The bounds of the window, on screen.
+     */
+    void reset(Rectangle bounds) {
+        top = bounds.height;
+        if (bounds.equals(this.bounds)) return;
+        clear();
+        this.bounds = new Rectangle(bounds);
+        tiles = new AtomicReferenceArray<>((bounds.height + TILE - 1) / TILE);
+    }
+
+    /**
+     * Captures every tile of the window that is missing or older than the
+     * interval. The memory cap doesn't apply: an unshaped window covers all
+     * of its area, and a missing tile would show up as a black strip. To be
+     * called while the window is hidden, when it can't be shaped.
+     */
+    void prefetch() {
+        AtomicReferenceArray<Tile> current = tiles;
+        for (int r = current.length() - 1; r >= 0; r--) {
+            Tile tile = current.get(r);
+            if (tile == null || System.currentTimeMillis() - tile.time >= interval) grab(current, r, tile, false);
+        }
+    }
+
+    /**
+     * Sets the area covered by notifications, capturing the tiles that come
+     * under them for the first time. To be called only by the painting thread,
+     * before the window grows over that area.
+     *
+     * @param top Where the notifications begin, from the top of the window.
+     * @return <code>true</code> if the area changed.
+     */
+    boolean cover(int top) {
+        if (top == this.top) return false;
+        AtomicReferenceArray<Tile> current = tiles;
+        if (live) {
+            for (int r = Math.max(top / TILE, 0); r < current.length(); r++) {
+                Tile tile = current.get(r);
+                if (tile == null) grab(current, r, null, false);
+            }
+        }
+        this.top = top;
+        return true;
+    }
+
+    /**
+     * Paints the tiles behind the notifications, or all of them if the window
+     * isn't shaped, since then the whole window is seen.
+     *
+     * @param g The graphics of the window.
+     */
+    void paint(Graphics g) {
+        AtomicReferenceArray<Tile> current = tiles;
+        for (int r = live ? Math.max(top / TILE, 0) : 0; r < current.length(); r++) {
+            Tile tile = current.get(r);
+            if (tile != null) g.drawImage(tile.image, 0, r * TILE, null);
+        }
+    }
+
+    /**
+     * Starts refreshing the tiles on the background, if the window is shaped.
+     */
+    synchronized void start() {
+        if (!live || task != null) return;
+        long period = Math.max(interval / 4, 50L);
+        task = Refresher.EXECUTOR.scheduleWithFixedDelay(this::refresh, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops refreshing the tiles and frees them. To be called when the window
+     * is disposed.
+     */
+    synchronized void stop() {
+        if (task != null) {
+            task.cancel(false);
+            task = null;
+        }
+        clear();
+        bounds = new Rectangle();
+        top = Integer.MAX_VALUE;
+    }
+
+    /**
+     * Refreshes the tiles right above the notifications that are older than
+     * the interval, dropping the ones beyond the memory cap.
+     */
+    void refresh() {
+        AtomicReferenceArray<Tile> current = tiles;
+        int first = Math.min(Math.max(top / TILE, 0), current.length());
+        long budget = memoryCap;
+        for (int r = first; r < current.length(); r++) {
+            Tile tile = current.get(r);
+            if (tile != null) budget -= tile.bytes();
+        }
+        for (int r = first - 1; r >= 0; r--) {
+            Tile tile = current.get(r);
+            budget -= rowBytes(r);
+            if (budget < 0) {
+                if (tile != null && current.compareAndSet(r, tile, null)) heldBytes.addAndGet(-tile.bytes());
+            } else if (tile == null || System.currentTimeMillis() - tile.time >= interval) {
+                grab(current, r, tile, true);
+            }
+        }
+    }
+
+    private long rowBytes(int r) {
+        Rectangle b = bounds;
+        return 4L * b.width * Math.min(TILE, b.height - r * TILE);
+    }
+
+    /**
+     * Captures one tile, unless the notifications grew over it meanwhile.
+     */
+    private void grab(AtomicReferenceArray<Tile> current, int r, Tile old, boolean background) {
+        Rectangle b = bounds;
+        int y = r * TILE;
+        Rectangle area = new Rectangle(b.x, b.y + y, b.width, Math.min(TILE, b.height - y));
+        long start = System.nanoTime();
+        BufferedImage image = grabber.apply(area);
+        captureNanos.addAndGet(System.nanoTime() - start);
+        if (image == null) return;
+        Tile tile = new Tile(image, System.currentTimeMillis());
+        captures.incrementAndGet();
+        captureBytes.addAndGet(tile.bytes());
+        //The window may have grown over it meanwhile
+        if (background && r >= top / TILE) return;
+        if (current.compareAndSet(r, old, tile)) {
+            heldBytes.addAndGet(tile.bytes() - (old == null ? 0L : old.bytes()));
+        }
+    }
+
+    private void clear() {
+        AtomicReferenceArray<Tile> current = tiles;
+        for (int r = 0; r < current.length(); r++) {
+            Tile tile = current.getAndSet(r, null);
+            if (tile != null) heldBytes.addAndGet(-tile.bytes());
+        }
+    }
+
+    /**
+     * The thread that refreshes the tiles of every window, created on first
+     * use.
+     */
+    private static final class Refresher {
+        static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "DesktopNotify Capture Thread");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    static long getInterval() {
+        return interval;
+    }
+
+    static void setInterval(long interval) {
+        BackgroundCapture.interval = Math.max(interval, 0L);
+    }
+
+    static long getMemoryCap() {
+        return memoryCap;
+    }
+
+    static void setMemoryCap(long memoryCap) {
+        BackgroundCapture.memoryCap = Math.max(memoryCap, 0L);
+    }
+
+    /**
+     * @return The amount of tiles captured so far.
+     */
+    static long getCaptureCount() {
+        return captures.get();
+    }
+
+    /**
+     * @return The time spent capturing tiles so far, in nanoseconds.
+     */
+    static long getCaptureNanos() {
+        return captureNanos.get();
+    }
+
+    /**
+     * @return The amount of bytes captured so far.
+     */
+    static long getCaptureBytes() {
+        return captureBytes.get();
+    }
+
+    /**
+     * @return The amount of bytes taken by the tiles currently held.
+     */
+    static long getHeldBytes() {
+        return heldBytes.get();
+    }
+}
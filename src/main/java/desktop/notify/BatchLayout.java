@@ -0,0 +1,72 @@
+/*
+ * DS Desktop Notify
+ * A small utility to show small notifications in your Desktop anytime!
+ */
+package desktop.notify;
+
+import desktop.notify.model.Notify;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Splits the text of a batch of notifications in lines, all at once. Large
+ * batches are split in halves and laid out in parallel on the common
+ * fork/join pool, small ones are laid out by the calling thread.
+ *
+ * @author DragShot
+ */
+final class BatchLayout extends RecursiveAction {
+
+    /**
+     * The amount of notifications below which a batch isn't split any more.
+     */
+    static final int THRESHOLD = 32;
+
+    private final List<Notify> windows;
+    private final int from, to, width;
+    private final DriverMetrics metrics;
+
+    private BatchLayout(List<Notify> windows, int from, int to, int width, DriverMetrics metrics) {
+        this.windows = windows;
+        this.from = from;
+        this.to = to;
+        this.width = width;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Lays out a batch of notifications.
+     *
+     * @param windows The notifications. The list must support fast random
+     *                access.
+     * @param width   The width of the notifications.
+     * @param metrics The metrics the time spent on each one is reported to.
+     */
+    static void layout(List<Notify> windows, int width, DriverMetrics metrics) {
+        BatchLayout task = new BatchLayout(windows, 0, windows.size(), width, metrics);
+        if (windows.size() <= THRESHOLD || ForkJoinPool.getCommonPoolParallelism() < 2) {
+            task.compute();
+        } else {
+            ForkJoinPool.commonPool().invoke(task);
+        }
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from > THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            int mid = (from + to) >>> 1;
+            invokeAll(new BatchLayout(windows, from, mid, width, metrics),
+                    new BatchLayout(windows, mid, to, width, metrics));
+            return;
+        }
+        for (int i = from; i < to; i++) {
+            Notify window = windows.get(i);
+            window.setW(width);
+            long start = System.nanoTime();
+            window.sortMessage();
+            metrics.layout(System.nanoTime() - start);
+        }
+    }
+}
@@ -12,6 +12,8 @@ import desktop.notify.theme.NotifyThemes;
 
 import java.awt.Image;
 import java.awt.event.ActionListener;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Main class of DS Desktop Notify. Use it to create and show notifications on
@@ -74,6 +76,211 @@ public class DesktopNotify {
         DesktopNotifyDriver.WIDTH = width;
     }
 
+    /**
+     * Sets the display used for the notifications that don't ask for a
+     * specific one. By default, they go to the primary display.
+     *
+     * @param routing The routing policy.
+     * @see NotificationBuilder#setRouting(DisplayRouting)
+     */
+    public static void setDefaultRouting(DisplayRouting routing) {
+        DesktopNotifyDriver.setRouting(routing);
+    }
+
+    /**
+     * Gets the display used for the notifications that don't ask for a
+     * specific one.
+     *
+     * @return The routing policy.
+     */
+    public static DisplayRouting getDefaultRouting() {
+        return DesktopNotifyDriver.getRouting();
+    }
+
+    /**
+     * Gets the IDs of the displays available, for use with
+     * {@link NotificationBuilder#setDisplay(String)}. The primary display comes
+     * first.
+     *
+     * @return The display IDs.
+     */
+    public static String[] getDisplays() {
+        return DesktopNotifyDriver.getDisplays();
+    }
+
+    /**
+     * Sets how often the desktop behind the notifications is captured again,
+     * on systems without native translucency. The notifications are painted
+     * over that capture to look translucent.
+     *
+     * @param millis The time after which a capture is refreshed, in
+     *               milliseconds.
+     */
+    public static void setCaptureInterval(long millis) {
+        BackgroundCapture.setInterval(millis);
+    }
+
+    /**
+     * Sets the memory the desktop captures may take, on systems without
+     * native translucency. The areas right above the notifications are
+     * captured in advance within this limit, so they are ready when more
+     * notifications arrive.
+     *
+     * @param bytes The maximum amount of memory, in bytes.
+     */
+    public static void setCaptureMemory(long bytes) {
+        BackgroundCapture.setMemoryCap(bytes);
+    }
+
+    /**
+     * Sets the maximum frame rate for the notification animations. Animations
+     * take the same time no matter the frame rate, lower values just make
+     * them less smooth in exchange for less CPU usage. Frames are only painted
+     * while something is moving on screen.
+     *
+     * @param fps The maximum amount of frames per second.
+     */
+    public static void setMaxFrameRate(int fps) {
+        DesktopNotifyDriver.getScheduler().setFrameMillis(1000L / Math.max(fps, 1));
+    }
+
+    /**
+     * Sets how long the notification windows are kept after the last
+     * notification is gone, so the ones shown shortly after appear faster.
+     *
+     * @param millis The time to keep them, in milliseconds.
+     */
+    public static void setIdleTimeout(long millis) {
+        DesktopNotifyDriver.setIdleTimeout(millis);
+    }
+
+    /**
+     * Sets how many texts the notifications remember the lines of, so the
+     * ones that repeat a text don't have to split it again.
+     *
+     * @param size The amount of texts, or 0 to always split them.
+     */
+    public static void setLineCacheSize(int size) {
+        Notify.setLineCacheSize(size);
+    }
+
+    /**
+     * Enables or disables active rendering, where the notifications are
+     * painted by the driver thread instead of the EDT. This keeps the
+     * animations smooth while the application keeps the EDT busy.
+     *
+     * @param active <code>true</code> to paint from the driver thread.
+     * @see DesktopNotifyDriver#setActiveRendering(boolean)
+     */
+    public static void setActiveRendering(boolean active) {
+        DesktopNotifyDriver.setActiveRendering(active);
+    }
+
+    /**
+     * Enables or disables asynchronous layout, where the text of the
+     * notifications is split in lines in the background, so showing one
+     * returns right away even for long messages. Notifications are still
+     * shown in the order they were posted.
+     *
+     * @param async <code>true</code> to lay out in the background.
+     * @see DesktopNotifyDriver#setAsyncLayout(boolean)
+     */
+    public static void setAsyncLayout(boolean async) {
+        DesktopNotifyDriver.setAsyncLayout(async);
+    }
+
+    /**
+     * Sets the maximum amount of notifications the driver will hold at once on
+     * each display, counting both the ones on screen and the ones waiting for
+     * room. The
+     * notifications posted beyond this are handled according to the
+     * {@link OverflowPolicy} in effect.
+     *
+     * @param capacity The maximum amount of notifications, or 0 for no limit.
+     * @see #setOverflowPolicy(OverflowPolicy)
+     */
+    public static void setQueueCapacity(int capacity) {
+        DesktopNotifyDriver.configure(queue -> queue.setCapacity(capacity));
+    }
+
+    /**
+     * Sets what to do with new notifications when the queue is full. By
+     * default, they are discarded.
+     *
+     * @param policy The policy to apply.
+     * @see #setQueueCapacity(int)
+     */
+    public static void setOverflowPolicy(OverflowPolicy policy) {
+        DesktopNotifyDriver.configure(queue -> queue.setPolicy(policy));
+    }
+
+    /**
+     * Sets how long a notification has to wait for room on screen in order to
+     * gain one level of priority over the ones that arrived later. This keeps
+     * low priority notifications from waiting forever when the screen is
+     * always full of more important ones.
+     *
+     * @param millis The time to gain one level of priority, in milliseconds,
+     *               or 0 to always show the highest priority ones first.
+     */
+    public static void setPriorityAging(long millis) {
+        DesktopNotifyDriver.configure(queue -> queue.setAging(millis));
+    }
+
+    /**
+     * Enables or disables the virtualized stack. When enabled and there are
+     * more notifications than the ones that fit on screen, a tile saying how
+     * many are left is shown on top of the stack. Clicking it sends the
+     * notifications on screen back to the queue and shows the next ones.
+     *
+     * @param virtualized <code>true</code> to show the summary tile.
+     */
+    public static void setVirtualized(boolean virtualized) {
+        DesktopNotifyDriver.configure(queue -> queue.setVirtualized(virtualized));
+    }
+
+    /**
+     * Sets how long the posting thread may wait for room in the queue when the
+     * {@link OverflowPolicy#BLOCK} policy is in effect.
+     *
+     * @param millis The maximum time to wait, in milliseconds.
+     */
+    public static void setOverflowTimeout(long millis) {
+        DesktopNotifyDriver.configure(queue -> queue.setTimeout(millis));
+    }
+
+    /**
+     * Sets the time the action of a notification may take before being
+     * interrupted, for the notifications that don't set their own.
+     *
+     * @param millis The maximum time, in milliseconds, or 0 for no limit.
+     * @see NotificationBuilder#setActionTimeout(long)
+     */
+    public static void setActionTimeout(long millis) {
+        DesktopNotifyDriver.getActions().setTimeout(millis);
+    }
+
+    /**
+     * Sets how many actions may be waiting or running at once. Clicks beyond
+     * this are ignored until some of the actions finish.
+     *
+     * @param limit The maximum amount of actions.
+     */
+    public static void setActionQueueLimit(int limit) {
+        DesktopNotifyDriver.getActions().setQueueLimit(limit);
+    }
+
+    /**
+     * Sets how many actions may run at the same time, on Java versions
+     * without virtual threads. With virtual threads, every action gets its
+     * own.
+     *
+     * @param threads The amount of threads.
+     */
+    public static void setActionThreads(int threads) {
+        DesktopNotifyDriver.getActions().setThreads(threads);
+    }
+
     /**
      * Creates and shows a new notification. If there isn't an instance of the
      * DesktopNotifyDriver thread running, it will be created and started to
@@ -255,4 +462,27 @@ public class DesktopNotify {
         notify.show();
     }
 
+    /**
+     * Shows a notification and tells when it makes it to the screen.
+     *
+     * @param notify The notification.
+     * @return A future that completes once the notification is painted on
+     * screen, or gets cancelled if it's discarded before that.
+     */
+    public static CompletableFuture<Notify> showAsync(Notify notify) {
+        return notify.showAsync();
+    }
+
+    /**
+     * Shows a batch of notifications at once. This is cheaper than showing
+     * them one by one: their text is laid out in a single pass, in parallel
+     * for large batches, and the driver picks them all up in the same frame.
+     *
+     * @param notifications The notifications to show, in order.
+     * @see NotificationBuilder#buildAll(Collection)
+     */
+    public static void showAll(Collection<Notify> notifications) {
+        DesktopNotifyDriver.postAll(notifications);
+    }
+
 }
\ No newline at end of file
@@ -4,117 +4,1009 @@
  */
 package desktop.notify;
 
-import balbucio.throwable.Throwable;
+import desktop.notify.animation.Timeline;
 import desktop.notify.model.Notify;
 
 import java.awt.*;
-import java.awt.event.ActionEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.image.BufferStrategy;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
 import javax.swing.JComponent;
 import javax.swing.JDialog;
 
 /**
  * This Driver keeps track of the notifications being displayed.
+ * <p>
+ * Every display gets its own window and queue of notifications, created the
+ * first time a notification is routed there. A single thread drives all of
+ * them. Without a display, notifications are painted offscreen instead.
  *
  * @author DragShot
  */
 public class DesktopNotifyDriver {
     /**
-     * The list of notifications currently on queue.
+     * The settings applied to the queue of every display.
      */
-    public static List<Notify> windows = new ArrayList<>();
+    private static final NotifyQueue defaults = new NotifyQueue();
     /**
-     * The window used to show the notifications.
+     * Where the notifications are shown, by display ID.
      */
-    public static DesktopLayoutFrame frame;
+    private static final Map<String, StackHost> frames = new ConcurrentHashMap<>();
+    /**
+     * The same hosts, in an array that can be walked on every frame without
+     * allocating an iterator.
+     */
+    private static volatile StackHost[] frameList = new StackHost[0];
+    /**
+     * The displays available and their bounds.
+     */
+    private static final ScreenRegistry screens = new ScreenRegistry();
+    /**
+     * The display used for notifications that don't ask for any.
+     */
+    private static volatile DisplayRouting routing = DisplayRouting.PRIMARY;
+    /**
+     * <code>true</code> if the driver thread paints the windows by itself.
+     */
+    private static volatile boolean activeRendering = false;
+    /**
+     * <code>true</code> if notifications are laid out in the background.
+     */
+    private static volatile boolean asyncLayout = false;
     /**
      * The DesktopNotify driver Thread.
      */
     public static volatile Thread tredo;
+    /**
+     * Guards starting and stopping the driver thread.
+     */
+    private static final Object driverLock = new Object();
+    /**
+     * <code>true</code> while the driver thread is waiting with nothing on
+     * screen.
+     */
+    private static boolean idle = false;
+    /**
+     * How long the driver thread and its windows are kept after the last
+     * notification is gone.
+     */
+    private static volatile long idleTimeout = 5000L;
+    private static final AtomicLong coldStarts = new AtomicLong();
+    private static final AtomicLong warmStarts = new AtomicLong();
     public static int WIDTH = 300;
+    /**
+     * Decides when the next frame has to be painted.
+     */
+    private static final RepaintScheduler scheduler = new RepaintScheduler();
+    /**
+     * Keeps track of the animations running on screen.
+     */
+    private static final Timeline timeline = new Timeline();
+    /**
+     * Runs the actions of the notifications clicked.
+     */
+    private static final ActionExecutor actions = new ActionExecutor();
+    /**
+     * What the driver has been doing, as seen through JMX.
+     */
+    private static final DriverMetrics metrics = new DriverMetrics(
+            () -> (int) sum(stack -> stack.visible),
+            () -> (int) sum(stack -> Math.max(stack.queue.size() - stack.visible, 0)));
+
+    static {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(
+                    new StandardMBean(metrics, DriverMetricsMBean.class), new ObjectName(DriverMetrics.OBJECT_NAME));
+        } catch (JMException | SecurityException ex) {
+            //Another copy of the library got there first, or JMX isn't allowed
+        }
+    }
+
+    /**
+     * Lays out the notifications in the background, when enabled.
+     */
+    private static final LayoutPipeline pipeline = new LayoutPipeline(
+            Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() - 1, 4)), metrics);
 
     /**
-     * Invoked by DesktopNotify, adds a notification to the queue. Notifications
-     * are shown only when there is room for them to fit in the screen.
+     * Invoked by DesktopNotify, adds a notification to the queue of the
+     * display it is routed to. Notifications are shown only when there is
+     * room for them to fit in the screen. If there is a notification on queue
+     * with the same coalescing key, the new one is merged into it instead. If
+     * the queue is full, the notification is handled according to the current
+     * {@link OverflowPolicy}.
+     * <p>
+     * With {@link #setAsyncLayout(boolean) asynchronous layout} enabled this
+     * returns right away, and the notification joins the queue once its text
+     * is laid out in the background, still in the order it was posted.
      *
      * @param window a <code>DesktopNotify</code> object
      */
     public static void postPane(Notify window) {
-        if (frame == null) {
-            boolean bool = JDialog.isDefaultLookAndFeelDecorated();
-            JDialog.setDefaultLookAndFeelDecorated(false);
-            frame = new DesktopLayoutFrame();
-            JDialog.setDefaultLookAndFeelDecorated(bool);
-        }
-        if (!frame.isVisible()) frame.setVisible(true);
-        window.setW(WIDTH);
-        window.sortMessage();
+        window.rearm();
+        ScreenRegistry.Screen screen = screens.resolve(
+                window.getRouting() == null ? routing : window.getRouting(), window.getDisplay());
+        StackHost target = frames.get(screen.id);
+        if (target == null) target = createFrame(screen);
+        if (!target.getStack().queue.admit(window)) {
+            //It may have been merged into one on screen
+            window.getShown().cancel(false);
+            scheduler.requestFrame();
+            return;
+        }
+        if (asyncLayout || pipeline.getPendingCount() > 0) {
+            //Behind the ones still being laid out, if it was just turned off
+            StackHost frame = target;
+            pipeline.submit(window, WIDTH, () -> {
+                try {
+                    enqueue(frame, window);
+                } catch (RuntimeException | Error ex) {
+                    abandon(frame, window, ex);
+                    throw ex;
+                }
+                wake();
+            }, ex -> abandon(frame, window, ex));
+            return;
+        }
+        try {
+            window.setW(WIDTH);
+            long start = System.nanoTime();
+            window.sortMessage();
+            metrics.layout(System.nanoTime() - start);
+            enqueue(target, window);
+        } catch (RuntimeException | Error ex) {
+            abandon(target, window, ex);
+            throw ex;
+        }
+        wake();
+    }
+
+    /**
+     * Adds a notification, already laid out, to the queue of a window.
+     */
+    private static void enqueue(StackHost target, Notify window) {
+        if (!target.isOpen()) target.setOpen(true);
         window.setVisible(true);
-        windows.add(window);
+        target.getStack().queue.post(window);
+    }
+
+    /**
+     * Gives up on a notification admitted to the queue of a window that
+     * couldn't be laid out or posted, freeing the room reserved for it and its
+     * coalescing key.
+     */
+    private static void abandon(StackHost target, Notify window, Throwable cause) {
+        window.setVisible(false);
+        target.getStack().queue.release(window);
+        window.getShown().completeExceptionally(cause);
+    }
+
+    /**
+     * Gets the driver thread going, if it isn't, and asks for a frame.
+     */
+    private static void wake() {
         sparkControlThread();
+        scheduler.requestFrame();
+    }
+
+    /**
+     * Adds a batch of notifications to the queues of the displays they are
+     * routed to, as {@link #postPane(Notify)} would. The whole batch is laid
+     * out at once, in parallel if it is large enough, then it is added to
+     * each queue in a single step and the driver is woken up just once. With
+     * {@link #setAsyncLayout(boolean) asynchronous layout} enabled the batch
+     * is laid out in the background instead, in its turn.
+     *
+     * @param batch The notifications to show, in order.
+     */
+    public static void postAll(Collection<Notify> batch) {
+        Map<StackHost, List<Notify>> admitted = new LinkedHashMap<>();
+        List<Notify> all = new ArrayList<>(batch.size());
+        for (Notify window : batch) {
+            window.rearm();
+            ScreenRegistry.Screen screen = screens.resolve(
+                    window.getRouting() == null ? routing : window.getRouting(), window.getDisplay());
+            StackHost target = frames.get(screen.id);
+            if (target == null) target = createFrame(screen);
+            if (target.getStack().queue.admit(window)) {
+                admitted.computeIfAbsent(target, k -> new ArrayList<>()).add(window);
+                all.add(window);
+            } else {
+                window.getShown().cancel(false);
+            }
+        }
+        if (all.isEmpty()) {
+            scheduler.requestFrame();
+            return;
+        }
+        if (asyncLayout || pipeline.getPendingCount() > 0) {
+            pipeline.submitAll(all, WIDTH, () -> {
+                enqueueAll(admitted);
+                wake();
+            }, ex -> abandonAll(admitted, ex));
+            return;
+        }
+        try {
+            BatchLayout.layout(all, WIDTH, metrics);
+        } catch (RuntimeException | Error ex) {
+            abandonAll(admitted, ex);
+            throw ex;
+        }
+        enqueueAll(admitted);
+        wake();
+    }
+
+    private static void abandonAll(Map<StackHost, List<Notify>> admitted, Throwable cause) {
+        for (Map.Entry<StackHost, List<Notify>> entry : admitted.entrySet()) {
+            for (Notify window : entry.getValue()) abandon(entry.getKey(), window, cause);
+        }
+    }
+
+    /**
+     * Adds batches of notifications, already laid out, to the queues of their
+     * windows. If a window can't take its batch, the notifications of that
+     * batch and the ones after it are given up.
+     */
+    private static void enqueueAll(Map<StackHost, List<Notify>> admitted) {
+        Iterator<Map.Entry<StackHost, List<Notify>>> it = admitted.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<StackHost, List<Notify>> entry = it.next();
+            StackHost target = entry.getKey();
+            try {
+                if (!target.isOpen()) target.setOpen(true);
+            } catch (RuntimeException | Error ex) {
+                for (Notify window : entry.getValue()) abandon(target, window, ex);
+                while (it.hasNext()) {
+                    Map.Entry<StackHost, List<Notify>> rest = it.next();
+                    for (Notify window : rest.getValue()) abandon(rest.getKey(), window, ex);
+                }
+                throw ex;
+            }
+            for (Notify window : entry.getValue()) {
+                window.setVisible(true);
+            }
+            target.getStack().queue.postAll(entry.getValue());
+        }
+    }
+
+    /**
+     * Creates the window used to show the notifications on a display, unless
+     * another thread did it first. Without a display, or when the
+     * <code>desktop.notify.surface</code> system property is set to
+     * <code>offscreen</code>, the notifications are painted into an image
+     * instead, by the driver thread.
+     *
+     * @param screen The display.
+     * @return The window for that display.
+     */
+    private static synchronized StackHost createFrame(ScreenRegistry.Screen screen) {
+        StackHost target = frames.get(screen.id);
+        if (target == null) {
+            if (screen.device == null || "offscreen".equals(System.getProperty("desktop.notify.surface"))) {
+                target = new OffscreenHost(screen.id);
+            } else {
+                boolean bool = JDialog.isDefaultLookAndFeelDecorated();
+                JDialog.setDefaultLookAndFeelDecorated(false);
+                target = new DesktopLayoutFrame(screen);
+                JDialog.setDefaultLookAndFeelDecorated(bool);
+            }
+            target.getStack().queue.copySettings(defaults);
+            frames.put(screen.id, target);
+            StackHost[] list = Arrays.copyOf(frameList, frameList.length + 1);
+            list[list.length - 1] = target;
+            frameList = list;
+        }
+        return target;
+    }
+
+    /**
+     * Changes a setting on the queue of every display, including the ones to
+     * come.
+     *
+     * @param setting The change to apply.
+     */
+    static synchronized void configure(Consumer<NotifyQueue> setting) {
+        setting.accept(defaults);
+        for (StackHost target : frameList) {
+            setting.accept(target.getStack().queue);
+        }
+    }
+
+    /**
+     * Sets the display used for the notifications that don't ask for any.
+     *
+     * @param routing The routing policy.
+     */
+    public static void setRouting(DisplayRouting routing) {
+        if (routing != null) DesktopNotifyDriver.routing = routing;
+    }
+
+    public static DisplayRouting getRouting() {
+        return routing;
+    }
+
+    /**
+     * Enables or disables active rendering. When enabled, the frames are
+     * painted by the driver thread instead of the EDT, so a busy EDT doesn't
+     * make the animations stutter. Opaque windows (the ones used when the
+     * system can't do translucency) are presented through a
+     * <code>BufferStrategy</code> with no help from the EDT at all.
+     * Translucent windows can only be updated by the EDT, which just copies
+     * the frame painted by the driver thread. Either way, showing, hiding,
+     * shaping and the cursor of the windows are still left to the EDT. Takes
+     * effect the next time the windows are shown.
+     *
+     * @param active <code>true</code> to paint from the driver thread.
+     */
+    public static void setActiveRendering(boolean active) {
+        activeRendering = active;
+    }
+
+    public static boolean isActiveRendering() {
+        return activeRendering;
+    }
+
+    /**
+     * Enables or disables asynchronous layout, where the text of the
+     * notifications is split in lines on a pool of background threads
+     * instead of the thread that posts them. {@link Notify#show()} returns
+     * right away then, and notifications join the queue once laid out, in
+     * the order they were posted, batches posted through
+     * {@link #postAll(Collection)} included.
+     *
+     * @param async <code>true</code> to lay out in the background.
+     */
+    public static void setAsyncLayout(boolean async) {
+        asyncLayout = async;
+    }
+
+    public static boolean isAsyncLayout() {
+        return asyncLayout;
+    }
+
+    /**
+     * Sets the amount of threads used for asynchronous layout.
+     *
+     * @param threads The amount of threads.
+     * @see #setAsyncLayout(boolean)
+     */
+    public static void setLayoutThreads(int threads) {
+        pipeline.setThreads(threads);
+    }
+
+    public static int getLayoutThreads() {
+        return pipeline.getThreads();
+    }
+
+    /**
+     * Sets how long the driver keeps its thread and windows after the last
+     * notification is gone. Notifications shown within that time don't have
+     * to wait for them to be created again.
+     *
+     * @param millis The time to keep them, in milliseconds, or 0 to tear
+     *               them down right away.
+     */
+    public static void setIdleTimeout(long millis) {
+        idleTimeout = Math.max(millis, 0L);
+        scheduler.requestFrame();
+    }
+
+    public static long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    /**
+     * Gets the amount of times the driver had to start from scratch to show
+     * a notification, creating its thread and windows.
+     *
+     * @return The amount of cold starts.
+     */
+    public static long getColdStartCount() {
+        return coldStarts.get();
+    }
+
+    /**
+     * Gets the amount of times the driver showed a notification after being
+     * idle, reusing the thread and windows it kept.
+     *
+     * @return The amount of warm starts.
+     */
+    public static long getWarmStartCount() {
+        return warmStarts.get();
+    }
+
+    /**
+     * Gets the IDs of the displays available, primary one first.
+     *
+     * @return The display IDs.
+     */
+    public static String[] getDisplays() {
+        return screens.getIds();
+    }
+
+    /**
+     * Forgets the display bounds known so far. They are refreshed on their own
+     * when the display configuration changes, this is only needed when the
+     * system reports a change in the taskbars alone.
+     */
+    public static void refreshDisplays() {
+        screens.invalidate();
+    }
+
+    /**
+     * Asks the driver to paint a new frame as soon as possible, for the cases
+     * where a notification changed and there isn't any animation running that
+     * would make it visible.
+     */
+    public static void requestRepaint() {
+        scheduler.requestFrame();
+    }
+
+    /**
+     * Gets the timeline the notification animations report to.
+     *
+     * @return The timeline.
+     */
+    public static Timeline getTimeline() {
+        return timeline;
+    }
+
+    /**
+     * Gets the amount of frames the driver has requested since the
+     * application started.
+     *
+     * @return The amount of repaints requested.
+     */
+    public static long getRepaintCount() {
+        return scheduler.getFrameCount();
+    }
+
+    /**
+     * Gets the amount of frames the driver has requested while there was no
+     * animation running on screen. Sampling this value twice gives the idle
+     * repaint rate, which should stay close to zero while the notifications
+     * on screen are just waiting for their timeout.
+     *
+     * @return The amount of repaints requested while idle.
+     */
+    public static long getIdleRepaintCount() {
+        return scheduler.getIdleFrameCount();
+    }
+
+    /**
+     * Gets the amount of notifications discarded because the queue was full,
+     * either on arrival or later on to make room for others.
+     *
+     * @return The amount of notifications rejected.
+     */
+    public static long getRejectedCount() {
+        return sum(stack -> stack.queue.getRejectedCount());
+    }
+
+    /**
+     * Gets the amount of notifications discarded by the
+     * {@link OverflowPolicy#DROP_OLDEST_NON_STICKY} policy to make room for
+     * newer ones.
+     *
+     * @return The amount of notifications evicted.
+     */
+    public static long getEvictedCount() {
+        return sum(stack -> stack.queue.getEvictedCount());
+    }
+
+    /**
+     * Gets the amount of notifications merged into another one, either for
+     * sharing its coalescing key or by the {@link OverflowPolicy#COALESCE}
+     * policy.
+     *
+     * @return The amount of notifications coalesced.
+     */
+    public static long getCoalescedCount() {
+        return sum(stack -> stack.queue.getCoalescedCount());
+    }
+
+    /**
+     * Gets the amount of notifications currently held by the driver, both
+     * the ones on screen and the ones waiting for room, on every display.
+     *
+     * @return The amount of notifications on queue.
+     */
+    public static int getQueueSize() {
+        return (int) sum(stack -> stack.queue.size());
+    }
+
+    /**
+     * Gets the amount of screen areas captured so far to fake translucency,
+     * on systems that don't support it.
+     *
+     * @return The amount of captures.
+     */
+    public static long getCaptureCount() {
+        return BackgroundCapture.getCaptureCount();
+    }
+
+    /**
+     * Gets the time spent capturing the screen so far to fake translucency.
+     *
+     * @return The time spent, in milliseconds.
+     */
+    public static double getCaptureMillis() {
+        return BackgroundCapture.getCaptureNanos() / 1000000.0;
+    }
+
+    /**
+     * Gets the amount of pixel data captured from the screen so far to fake
+     * translucency.
+     *
+     * @return The amount of bytes captured.
+     */
+    public static long getCaptureBytes() {
+        return BackgroundCapture.getCaptureBytes();
+    }
+
+    /**
+     * Gets the memory currently taken by the screen captures used to fake
+     * translucency.
+     *
+     * @return The amount of bytes held.
+     */
+    public static long getCaptureMemory() {
+        return BackgroundCapture.getHeldBytes();
+    }
+
+    /**
+     * Gets the amount of notification actions that ran without errors.
+     *
+     * @return The amount of actions completed.
+     */
+    public static long getActionCount() {
+        return actions.getExecutedCount();
+    }
+
+    /**
+     * Gets the amount of notification actions that threw an exception.
+     *
+     * @return The amount of actions failed.
+     */
+    public static long getActionFailures() {
+        return actions.getFailedCount();
+    }
+
+    /**
+     * Gets the amount of notification actions interrupted for taking longer
+     * than their timeout.
+     *
+     * @return The amount of actions timed out.
+     */
+    public static long getActionTimeouts() {
+        return actions.getTimedOutCount();
+    }
+
+    /**
+     * Gets the amount of clicks ignored because too many actions were
+     * waiting or running already.
+     *
+     * @return The amount of actions rejected.
+     */
+    public static long getActionRejections() {
+        return actions.getRejectedCount();
+    }
+
+    private static long sum(ToLongFunction<NotifyStack> counter) {
+        long total = 0L;
+        for (StackHost target : frameList) {
+            total += counter.applyAsLong(target.getStack());
+        }
+        return total;
+    }
+
+    static DriverMetrics getMetrics() {
+        return metrics;
+    }
+
+    static ActionExecutor getActions() {
+        return actions;
+    }
+
+    static RepaintScheduler getScheduler() {
+        return scheduler;
+    }
+
+    static ScreenRegistry getScreens() {
+        return screens;
+    }
+
+    /**
+     * Tells the scheduler when the next frame is due, which is the earliest
+     * time any of the windows needs it. To be called only by the painting
+     * thread, after painting any of them.
+     */
+    private static void frameRendered() {
+        long next = Long.MAX_VALUE;
+        boolean animating = false;
+        for (StackHost target : frameList) {
+            next = Math.min(next, target.getStack().deadline);
+            animating |= target.getStack().animating;
+        }
+        scheduler.frameRendered(next, animating);
     }
 
     /**
      * Starts the thread used to show and control the notifications, if
-     * necessary.
+     * necessary. To be called after posting a notification.
      */
     private static void sparkControlThread() {
-        if (tredo == null) {
-            tredo = new Thread(() -> {
-                frame.finished = false;
-                while (!frame.finished) {
-                    frame.repaint();
-                    //FPS> 10:Super-high, 20: High, 40: Normal, 80: Low
-                    Throwable.threadSleep(20);
+        synchronized (driverLock) {
+            if (tredo == null) {
+                coldStarts.incrementAndGet();
+                idle = false;
+                tredo = new Thread(DesktopNotifyDriver::drive, "DesktopNotify Driver Thread");
+                tredo.start();
+            } else if (idle) {
+                warmStarts.incrementAndGet();
+                idle = false;
+            }
+        }
+    }
+
+    /**
+     * The loop of the driver thread. Windows with nothing left to show are
+     * hidden, and disposed once they have been idle for the idle timeout. The
+     * thread ends along with the last of them.
+     */
+    private static void drive() {
+        while (true) {
+            metrics.framesSkipped(scheduler.awaitNextFrame());
+            long now = System.currentTimeMillis();
+            boolean running = false, warm = false;
+            for (StackHost target : frameList) {
+                if (!target.getStack().finished || target.getStack().queue.hasIncoming()) {
+                    if (!target.isOpen()) target.setOpen(true);
+                    target.paintFrame();
+                    running = true;
+                } else if (target.isOpen()) {
+                    //Kept around for a while, in case more notifications come
+                    target.setOpen(false);
+                    target.setIdleSince(now);
+                    target.getStack().deadline = now + idleTimeout;
+                    target.getStack().animating = false;
+                    warm = true;
+                } else if (!target.isReleased()) {
+                    if (now - target.getIdleSince() >= idleTimeout) {
+                        target.getStack().deadline = Long.MAX_VALUE;
+                        target.release();
+                    } else {
+                        warm = true;
+                    }
+                }
+            }
+            if (!running) {
+                synchronized (driverLock) {
+                    //Posted meanwhile, sparkControlThread() will count it
+                    if (!hasIncoming()) {
+                        if (!warm) {
+                            tredo = null;
+                            return;
+                        }
+                        idle = true;
+                    }
                 }
-                frame.dispose();
-                tredo = null;
-            }, "DesktopNotify Driver Thread");
-            tredo.start();
+                frameRendered();
+            }
+        }
+    }
+
+    private static boolean hasIncoming() {
+        for (StackHost target : frameList) {
+            if (target.getStack().queue.hasIncoming()) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the notifications shown or waiting on every display.
+     *
+     * @return A copy of the notifications, as seen at some point.
+     * @deprecated Notifications are kept on a queue per display that belongs
+     * to the driver thread, which replaced the <code>windows</code> list.
+     * This copy is a best effort and may miss the ones moving meanwhile.
+     */
+    @Deprecated
+    public static List<Notify> getWindows() {
+        List<Notify> all = new ArrayList<>();
+        for (StackHost target : frameList) {
+            all.addAll(target.getStack().queue.snapshot());
         }
+        return all;
+    }
+
+    /**
+     * Gets the window used to show the notifications on the primary display.
+     *
+     * @return The window, or <code>null</code> if none has been needed yet or
+     * the notifications are painted offscreen.
+     * @deprecated There's a window per display, which replaced the
+     * <code>frame</code> field.
+     */
+    @Deprecated
+    public static JDialog getFrame() {
+        StackHost target = frames.get(screens.get(null).id);
+        return target instanceof JDialog ? (JDialog) target : null;
     }
 
     /**
      * Utilitary method for gathering the FontMetrics of a given Font.
-     * Made because of laziness.
+     * Made because of laziness. Measures the font as painted on the
+     * notifications, through the {@link FontMetricsRegistry}, so it works
+     * before any window is shown and in headless environments.
      *
      * @param font A Font.
      * @return The FontMetrics in effect for the selected font.
      */
     public static FontMetrics getFontMetrics(Font font) {
-        return frame.getGraphics().getFontMetrics(font);
+        return FontMetricsRegistry.getFontMetrics(font);
+    }
+
+    /**
+     * Applies a change to the state of a window on the EDT, where it belongs,
+     * right away if already there. Painting is the only thing the driver
+     * thread does to a window by itself.
+     */
+    private static void onEdt(Runnable change) {
+        if (EventQueue.isDispatchThread()) change.run();
+        else EventQueue.invokeLater(change);
+    }
+
+    /**
+     * Shows the notifications routed to a display, painting a frame whenever
+     * the driver thread asks for it.
+     */
+    private interface StackHost {
+
+        /**
+         * @return The notifications shown.
+         */
+        NotifyStack getStack();
+
+        /**
+         * @return <code>true</code> if the notifications were last asked to
+         * be shown, even if the window isn't up yet.
+         */
+        boolean isOpen();
+
+        /**
+         * Shows or hides the notifications. Shown, they are sized to the
+         * display again. Safe to call from any thread.
+         *
+         * @param open <code>true</code> to show them.
+         */
+        void setOpen(boolean open);
+
+        /**
+         * @return <code>true</code> if nothing is held, until shown again.
+         */
+        boolean isReleased();
+
+        /**
+         * Frees the resources held while hidden. Safe to call from any
+         * thread.
+         */
+        void release();
+
+        /**
+         * Paints a frame, or asks for it to be painted. Called by the driver
+         * thread.
+         */
+        void paintFrame();
+
+        /**
+         * @return When the notifications were hidden for having nothing to
+         * show. Used only by the driver thread.
+         */
+        long getIdleSince();
+
+        void setIdleSince(long l);
+    }
+
+    /**
+     * Paints the notifications routed to a display into an image, with no
+     * window at all. Used when there's no display.
+     */
+    private static class OffscreenHost implements StackHost {
+
+        private final NotifyStack stack = new NotifyStack(scheduler, metrics, actions);
+        private final String display;
+        private volatile OffscreenSurface surface;
+        private volatile boolean visible;
+        private long idleSince;
+
+        OffscreenHost(String display) {
+            this.display = display;
+        }
+
+        @Override
+        public NotifyStack getStack() {
+            return stack;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return visible;
+        }
+
+        @Override
+        public void setOpen(boolean visible) {
+            if (visible) {
+                Rectangle screenSize = screens.get(display).bounds;
+                int height = screenSize.height - 10;
+                OffscreenSurface current = surface;
+                if (current == null || current.getWidth() != DesktopNotifyDriver.WIDTH
+                        || current.getHeight() != height) {
+                    surface = new OffscreenSurface(DesktopNotifyDriver.WIDTH, height);
+                }
+            }
+            this.visible = visible;
+        }
+
+        @Override
+        public boolean isReleased() {
+            return surface == null;
+        }
+
+        @Override
+        public void release() {
+            visible = false;
+            surface = null;
+        }
+
+        @Override
+        public void paintFrame() {
+            OffscreenSurface current = surface;
+            if (current == null) return;
+            current.paintFrame(stack, System.currentTimeMillis());
+            frameRendered();
+        }
+
+        @Override
+        public long getIdleSince() {
+            return idleSince;
+        }
+
+        @Override
+        public void setIdleSince(long l) {
+            idleSince = l;
+        }
     }
 
     /**
-     * An undecorated JDialog used to show all the notifications on screen.
+     * An undecorated JDialog used to show all the notifications on a display.
      */
-    private static class DesktopLayoutFrame extends JDialog {
+    private static class DesktopLayoutFrame extends JDialog implements StackHost, RenderSurface {
 
-        private Image bg;
+        /**
+         * The notifications shown on this window.
+         */
+        private final NotifyStack stack = new NotifyStack(scheduler, metrics, actions);
+        /**
+         * The ID of the display this window belongs to.
+         */
+        private final String display;
         private boolean nativeTrans;
-        private boolean finished = true;
-        private boolean clicked = false;
+        /**
+         * The desktop behind the notifications, when there's no native
+         * translucency.
+         */
+        private BackgroundCapture capture;
+        /**
+         * <code>true</code> if the window is shaped to the area taken by the
+         * notifications, which only happens when faking translucency.
+         */
+        private boolean shaped;
+        /**
+         * The mouse pointer, as reported by the mouse events.
+         */
+        private final MouseState mouse = new MouseState();
+        private int cursorType = Cursor.DEFAULT_CURSOR;
+        /**
+         * <code>true</code> if the driver thread paints this window by
+         * itself, set every time it is shown.
+         */
+        private volatile boolean active;
+        /**
+         * What the window was last asked to be, set right away while the EDT
+         * gets to it.
+         */
+        private volatile boolean open, released = true;
+        /**
+         * When this window was hidden for having nothing to show. Used only
+         * by the driver thread.
+         */
+        private long idleSince;
+        /**
+         * The last frame painted by the driver thread and the one being
+         * painted, when actively rendering a translucent window. Swapped
+         * while holding the lock of <code>frontLock</code>, which the EDT
+         * also holds while copying the front one.
+         */
+        private BufferedImage front, back;
+        private Graphics2D frontCanvas, backCanvas;
+        private final Object frontLock = new Object();
 
-        public DesktopLayoutFrame() {
-            super((Frame) null, "Desktop Notify");
+        public DesktopLayoutFrame(ScreenRegistry.Screen screen) {
+            super((Frame) null, "Desktop Notify", false, screen.config);
+            display = screen.id;
             setUndecorated(true);
             nativeTrans = Utils.isTranslucencySupported();
             setBackground(new Color(0, 0, 0, nativeTrans ? 0 : 255));
+            if (!nativeTrans) {
+                shaped = Utils.isShapingSupported(screen.device);
+                capture = new BackgroundCapture(Utils::captureScreen, shaped);
+            }
             setContentPane(new JComponent() {
                 @Override
                 public void paintComponent(Graphics g) {
-                    render((Graphics2D) g);
+                    if (!active) {
+                        stack.render((Graphics2D) g, DesktopLayoutFrame.this, System.currentTimeMillis());
+                        frameRendered();
+                    } else if (nativeTrans) {
+                        synchronized (frontLock) {
+                            if (front != null) g.drawImage(front, 0, 0, null);
+                        }
+                    } else {
+                        //Exposed, the driver thread will present it again
+                        scheduler.requestFrame();
+                    }
                 }
             });
-            addMouseListener(new MouseAdapter() {
+            MouseAdapter listener = new MouseAdapter() {
                 @Override
                 public void mouseClicked(MouseEvent evt) {
-                    clicked = true;
+                    mouse.click(evt.getY());
+                    scheduler.requestFrame();
                 }
-            });
+
+                @Override
+                public void mouseMoved(MouseEvent evt) {
+                    mouse.move(evt.getY());
+                    scheduler.requestFrame();
+                }
+
+                @Override
+                public void mouseDragged(MouseEvent evt) {
+                    mouse.move(evt.getY());
+                    scheduler.requestFrame();
+                }
+
+                @Override
+                public void mouseEntered(MouseEvent evt) {
+                    mouse.move(evt.getY());
+                    scheduler.requestFrame();
+                }
+
+                @Override
+                public void mouseExited(MouseEvent evt) {
+                    mouse.move(-1);
+                    scheduler.requestFrame();
+                }
+            };
+            addMouseListener(listener);
+            addMouseMotionListener(listener);
             setFocusableWindowState(false);
             setAlwaysOnTop(true);
         }
@@ -123,84 +1015,166 @@ public class DesktopNotifyDriver {
         public void setVisible(boolean visible) {
             boolean bool = isVisible();
             if (visible) {
-                Rectangle screenSize = Utils.getScreenSize();
+                Rectangle screenSize = screens.get(display).bounds;
                 setBounds(screenSize.x + screenSize.width - DesktopNotifyDriver.WIDTH - 10, screenSize.y,
                         DesktopNotifyDriver.WIDTH, screenSize.height - 10);
-                if (!bool && !nativeTrans)
-                    bg = Utils.getBackgroundCap(getBounds());
+                if (!bool) {
+                    //Opaque windows are presented by the driver thread alone
+                    setIgnoreRepaint(activeRendering && !nativeTrans);
+                }
+                if (!bool && !nativeTrans) {
+                    capture.reset(getBounds());
+                    if (shaped) {
+                        //Nothing to cover yet
+                        setShape(new Rectangle(0, getHeight(), getWidth(), 0));
+                        capture.start();
+                    } else {
+                        capture.prefetch();
+                    }
+                }
             }
             super.setVisible(visible);
+            //Only once it can be presented
+            if (visible && !bool) active = activeRendering;
+            //Nothing to keep fresh behind a hidden window
+            if (!visible && bool && capture != null) capture.stop();
+        }
+
+        @Override
+        public void dispose() {
+            active = false;
+            if (capture != null) capture.stop();
+            super.dispose();
+            synchronized (frontLock) {
+                if (frontCanvas != null) frontCanvas.dispose();
+                if (backCanvas != null) backCanvas.dispose();
+                front = back = null;
+                frontCanvas = backCanvas = null;
+            }
         }
 
         /**
-         * Paints the window contents.
-         *
-         * @param rd a graphics2D object received from the original paint event.
+         * Paints a frame and presents it, from the driver thread.
          */
-        public void render(Graphics2D rd) {
-            Point p = getMousePosition();
-            finished = false;
+        void renderActive() {
+            if (!nativeTrans) {
+                BufferStrategy strategy = getBufferStrategy();
+                if (strategy == null) {
+                    createBufferStrategy(2);
+                    strategy = getBufferStrategy();
+                }
+                do {
+                    do {
+                        Graphics2D g = (Graphics2D) strategy.getDrawGraphics();
+                        try {
+                            stack.render(g, this, System.currentTimeMillis());
+                        } finally {
+                            g.dispose();
+                        }
+                    } while (strategy.contentsRestored());
+                    strategy.show();
+                } while (strategy.contentsLost());
+                Toolkit.getDefaultToolkit().sync();
+            } else {
+                int w = getWidth(), h = getHeight();
+                if (back == null || back.getWidth() != w || back.getHeight() != h) {
+                    if (backCanvas != null) backCanvas.dispose();
+                    back = getGraphicsConfiguration().createCompatibleImage(w, h, Transparency.TRANSLUCENT);
+                    backCanvas = back.createGraphics();
+                }
+                stack.render(backCanvas, this, System.currentTimeMillis());
+                synchronized (frontLock) {
+                    BufferedImage image = front;
+                    Graphics2D canvas = frontCanvas;
+                    front = back;
+                    frontCanvas = backCanvas;
+                    back = image;
+                    backCanvas = canvas;
+                }
+                repaint();
+            }
+            frameRendered();
+        }
+
+        @Override
+        public NotifyStack getStack() {
+            return stack;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
 
-            int x = 0, y = getHeight();
-            long l = System.currentTimeMillis();
+        @Override
+        public void setOpen(boolean open) {
+            if (open) released = false;
+            this.open = open;
+            onEdt(() -> setVisible(open));
+        }
 
-            if (windows.isEmpty()) finished = true;
+        @Override
+        public boolean isReleased() {
+            return released;
+        }
 
-            int cur = Cursor.DEFAULT_CURSOR;
+        @Override
+        public void release() {
+            released = true;
+            onEdt(this::dispose);
+        }
 
-            if (!nativeTrans) rd.drawImage(bg, 0, 0, this);
+        @Override
+        public void paintFrame() {
+            if (active && isDisplayable()) renderActive();
+            else repaint();
+        }
 
-            for (int i = 0; i < windows.size(); i++) {
-                Notify window = windows.get(i);
-                if (window.isVisible()) {
-                    y -= window.getH();
-                    if (window.getPopupStart() == 0) {
-                        window.setPopupStart(System.currentTimeMillis());
-                    }
+        @Override
+        public long getIdleSince() {
+            return idleSince;
+        }
 
-                    if (y > 0) {
-                        boolean hover = false;
-                        if (p != null) {
-                            if (p.y > y && p.y < y + window.getH()) {
-                                hover = true;
-                                if (window.getAction() != null) {
-                                    cur = Cursor.HAND_CURSOR;
-                                }
-                                if (clicked) {
-                                    if (window.getAction() != null) {
-                                        final Notify w = window;
-                                        final long lf = l;
-                                        EventQueue.invokeLater(() -> w.getAction().actionPerformed(new ActionEvent(w, ActionEvent.ACTION_PERFORMED, "fireAction", lf, 0)));
-                                    }
-                                    if (window.expTime() == Long.MAX_VALUE) {
-                                        window.setTimeout(l - window.getPopupStart() + 500);
-                                    }
-                                }
-                            }
-                        }
+        @Override
+        public void setIdleSince(long l) {
+            idleSince = l;
+        }
 
-                        window.render(x, y, hover, rd, l);
+        @Override
+        public boolean takeClick() {
+            return mouse.takeClick();
+        }
 
-                        if (window.isMarkedForHide()) {
-                            window.setTimeout(l - window.getPopupStart() + 500);
-                            window.setMarkedForHide(false);
-                        }
-                    } else {
-                        window.setPopupStart(l);
-                    }
+        @Override
+        public int getMouseY() {
+            return mouse.getY();
+        }
 
-                    if (l > window.expTime() || (y <= 0 && window.isMarkedForHide())) {
-                        window.setMarkedForHide(false);
-                        window.setVisible(false);
-                        windows.remove(window);
-                        i--;
-                    }
+        @Override
+        public void setCursorType(int type) {
+            if (type != cursorType) {
+                cursorType = type;
+                Cursor cursor = Cursor.getPredefinedCursor(type);
+                onEdt(() -> setCursor(cursor));
+            }
+        }
 
-                    y -= 5;
+        @Override
+        public void paintBackground(Graphics2D rd, int top) {
+            if (nativeTrans) {
+                if (active) {
+                    //Not cleared by Swing when painting from the driver thread
+                    rd.setComposite(AlphaComposite.Clear);
+                    rd.fillRect(0, 0, getWidth(), getHeight());
+                    rd.setComposite(AlphaComposite.SrcOver);
                 }
+                return;
+            }
+            if (capture.cover(top) && shaped) {
+                Rectangle shape = new Rectangle(0, top, getWidth(), getHeight() - top);
+                onEdt(() -> setShape(shape));
             }
-            clicked = false;
-            setCursor(new Cursor(cur));
+            capture.paint(rd);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,33 @@
+/*
+ * DS Desktop Notify
+ * A small utility to show small notifications in your Desktop anytime!
+ */
+package desktop.notify;
+
+/**
+ * Defines on which display a notification is shown when there is more than
+ * one. Each display has its own stack of notifications.
+ *
+ * @author DragShot
+ * @see DesktopNotify#setDefaultRouting(DisplayRouting)
+ * @see NotificationBuilder#setRouting(DisplayRouting)
+ */
+public enum DisplayRouting {
+    /**
+     * The notification is shown on the primary display.
+     */
+    PRIMARY,
+    /**
+     * The notification is shown on the display the mouse pointer is on at the
+     * time it is posted.
+     */
+    MOUSE,
+    /**
+     * The notification is shown on the display with the ID given through
+     * {@link NotificationBuilder#setDisplay(String)}. If there's no such
+     * display, it is shown on the primary one.
+     *
+     * @see DesktopNotify#getDisplays()
+     */
+    NAMED
+}
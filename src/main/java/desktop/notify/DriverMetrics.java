@@ -0,0 +1,174 @@
+/*
+ * DS Desktop Notify
+ * A small utility to show small notifications in your Desktop anytime!
+ */
+package desktop.notify;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+/**
+ * Gathers how the Driver is doing: how long frames take, how long
+ * notifications wait to be seen and how they go away.
+ * <p>
+ * Everything is recorded through atomic counters and
+ * {@link LatencyHistogram}s, with no locks and no allocation, so the cost is
+ * negligible when nobody is looking. The values are only worked out when
+ * read.
+ *
+ * @author DragShot
+ */
+class DriverMetrics implements DriverMetricsMBean {
+
+    /**
+     * The name the metrics of the Driver are registered under.
+     */
+    static final String OBJECT_NAME = "desktop.notify:type=DesktopNotifyDriver";
+
+    private final LatencyHistogram frames = new LatencyHistogram();
+    private final LatencyHistogram firstPaint = new LatencyHistogram();
+    private final LatencyHistogram layout = new LatencyHistogram();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong dismissed = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+
+    private final IntSupplier visible;
+    private final IntSupplier queued;
+
+    /**
+     * Creates a set of metrics.
+     *
+     * @param visible Gives the amount of notifications on screen.
+     * @param queued  Gives the amount of notifications waiting.
+     */
+    DriverMetrics(IntSupplier visible, IntSupplier queued) {
+        this.visible = visible;
+        this.queued = queued;
+    }
+
+    /**
+     * @param nanos The time it took to paint a frame.
+     */
+    void frameRendered(long nanos) {
+        frames.record(nanos);
+    }
+
+    /**
+     * @param nanos The time between posting a notification and painting it.
+     */
+    void firstPaint(long nanos) {
+        firstPaint.record(nanos);
+    }
+
+    /**
+     * @param nanos The time it took to split the text of a notification.
+     */
+    void layout(long nanos) {
+        layout.record(nanos);
+    }
+
+    /**
+     * @param count The amount of frames due that went by without being
+     *              painted.
+     */
+    void framesSkipped(long count) {
+        if (count > 0L) skipped.addAndGet(count);
+    }
+
+    void expired() {
+        expired.incrementAndGet();
+    }
+
+    void dismissed() {
+        dismissed.incrementAndGet();
+    }
+
+    private static long micros(long nanos) {
+        return nanos / 1000L;
+    }
+
+    @Override
+    public long getFrameTimeP50() {
+        return micros(frames.percentile(50));
+    }
+
+    @Override
+    public long getFrameTimeP99() {
+        return micros(frames.percentile(99));
+    }
+
+    @Override
+    public long getFrameTimeMax() {
+        return micros(frames.getMax());
+    }
+
+    @Override
+    public long getFramesRendered() {
+        return frames.getCount();
+    }
+
+    @Override
+    public long getFramesSkipped() {
+        return skipped.get();
+    }
+
+    @Override
+    public int getVisibleCount() {
+        return visible.getAsInt();
+    }
+
+    @Override
+    public int getQueuedCount() {
+        return queued.getAsInt();
+    }
+
+    @Override
+    public long getFirstPaintLatencyP50() {
+        return micros(firstPaint.percentile(50));
+    }
+
+    @Override
+    public long getFirstPaintLatencyP99() {
+        return micros(firstPaint.percentile(99));
+    }
+
+    @Override
+    public long getFirstPaintLatencyMax() {
+        return micros(firstPaint.getMax());
+    }
+
+    @Override
+    public long getLayoutTimeP50() {
+        return micros(layout.percentile(50));
+    }
+
+    @Override
+    public long getLayoutTimeP99() {
+        return micros(layout.percentile(99));
+    }
+
+    @Override
+    public long getLayoutTimeTotal() {
+        return micros(layout.getTotal());
+    }
+
+    @Override
+    public long getExpiredCount() {
+        return expired.get();
+    }
+
+    @Override
+    public long getDismissedCount() {
+        return dismissed.get();
+    }
+
+    @Override
+    public void reset() {
+        skipped.set(0L);
+        frames.reset();
+        firstPaint.reset();
+        layout.reset();
+        expired.set(0L);
+        dismissed.set(0L);
+    }
+}
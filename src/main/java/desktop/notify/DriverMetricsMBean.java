@@ -0,0 +1,104 @@
+/*
+ * DS Desktop Notify
+ * A small utility to show small notifications in your Desktop anytime!
+ */
+package desktop.notify;
+
+/**
+ * The metrics of the Driver, as seen through JMX. They are registered under
+ * <code>desktop.notify:type=DesktopNotifyDriver</code>. Times are given in microseconds.
+ *
+ * @author DragShot
+ */
+public interface DriverMetricsMBean {
+
+    /**
+     * @return The median time it took to paint a frame.
+     */
+    long getFrameTimeP50();
+
+    /**
+     * @return The time it took to paint 99% of the frames, at most.
+     */
+    long getFrameTimeP99();
+
+    /**
+     * @return The longest time it took to paint a frame.
+     */
+    long getFrameTimeMax();
+
+    /**
+     * @return The amount of frames painted.
+     */
+    long getFramesRendered();
+
+    /**
+     * @return The amount of frames that were due while something was being
+     * animated and were never painted, because the driver thread fell
+     * behind.
+     */
+    long getFramesSkipped();
+
+    /**
+     * @return The amount of notifications on screen right now.
+     */
+    int getVisibleCount();
+
+    /**
+     * @return The amount of notifications waiting for room on screen right
+     * now.
+     */
+    int getQueuedCount();
+
+    /**
+     * @return The median time between posting a notification and painting it
+     * for the first time.
+     */
+    long getFirstPaintLatencyP50();
+
+    /**
+     * @return The time between posting a notification and painting it for
+     * the first time, for 99% of them at most.
+     */
+    long getFirstPaintLatencyP99();
+
+    /**
+     * @return The longest time between posting a notification and painting
+     * it for the first time.
+     */
+    long getFirstPaintLatencyMax();
+
+    /**
+     * @return The median time it took to split the text of a notification in
+     * lines.
+     */
+    long getLayoutTimeP50();
+
+    /**
+     * @return The time it took to split the text of a notification in lines,
+     * for 99% of them at most.
+     */
+    long getLayoutTimeP99();
+
+    /**
+     * @return The total time spent splitting the text of notifications in
+     * lines.
+     */
+    long getLayoutTimeTotal();
+
+    /**
+     * @return The amount of notifications that went away on their own, when
+     * their time was up or when hidden by the application.
+     */
+    long getExpiredCount();
+
+    /**
+     * @return The amount of notifications dismissed by the user with a click.
+     */
+    long getDismissedCount();
+
+    /**
+     * Forgets the times and counts gathered so far.
+     */
+    void reset();
+}
@@ -0,0 +1,228 @@
+/*
+ * DS Desktop Notify
+ * A small utility to show small notifications in your Desktop anytime!
+ */
+package desktop.notify;
+
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.font.FontRenderContext;
+import java.awt.image.BufferedImage;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hands out the metrics of the fonts used by the notifications, measured once
+ * per font and kept for everyone to share.
+ * <p>
+ * Fonts are measured on an offscreen image, so this works before any window
+ * is created and with <code>java.awt.headless=true</code>. Unless told
+ * otherwise, they are measured the way notifications are painted: with
+ * antialiased text, no fractional metrics and no scaling. Thread-safe.
+ *
+ * @author DragShot
+ */
+public final class FontMetricsRegistry {
+
+    /**
+     * The context notifications are painted with.
+     */
+    public static final FontRenderContext DEFAULT_CONTEXT = new FontRenderContext(null, true, false);
+
+    private static final int MAX_ENTRIES = 256;
+    private static final Map<Key, Metrics> registry = new ConcurrentHashMap<>();
+
+    private FontMetricsRegistry() {
+    }
+
+    /**
+     * Gets the metrics of a font, as painted on notifications.
+     *
+     * @param font A Font.
+     * @return Its metrics.
+     */
+    public static Metrics get(Font font) {
+        return get(font, DEFAULT_CONTEXT);
+    }
+
+    /**
+     * Gets the metrics of a font, as painted with a given context.
+     *
+     * @param font    A Font.
+     * @param context The context it's painted with.
+     * @return Its metrics.
+     */
+    public static Metrics get(Font font, FontRenderContext context) {
+        Key key = new Key(Objects.requireNonNull(font), Objects.requireNonNull(context));
+        Metrics m = registry.get(key);
+        if (m == null) {
+            //Fonts come from themes, there should be a few at most
+            if (registry.size() >= MAX_ENTRIES) registry.clear();
+            m = registry.computeIfAbsent(key, FontMetricsRegistry::measure);
+        }
+        return m;
+    }
+
+    /**
+     * Gets the <code>FontMetrics</code> of a font, as painted on
+     * notifications.
+     *
+     * @param font A Font.
+     * @return Its FontMetrics.
+     */
+    public static FontMetrics getFontMetrics(Font font) {
+        return get(font).getFontMetrics();
+    }
+
+    /**
+     * Gets the height of a line of text in a font, as painted on
+     * notifications, not counting the leading.
+     *
+     * @param font A Font.
+     * @return The height of a line, in pixels.
+     */
+    public static int getLineHeight(Font font) {
+        return get(font).getLineHeight();
+    }
+
+    /**
+     * @return The amount of fonts measured and kept.
+     */
+    public static int size() {
+        return registry.size();
+    }
+
+    /**
+     * Forgets every font measured so far.
+     */
+    public static void clear() {
+        registry.clear();
+    }
+
+    private static Metrics measure(Key key) {
+        FontRenderContext context = key.context;
+        Graphics2D g = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+        try {
+            g.setTransform(context.getTransform());
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, context.getAntiAliasingHint());
+            g.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, context.getFractionalMetricsHint());
+            return new Metrics(g.getFontMetrics(key.font));
+        } finally {
+            g.dispose();
+        }
+    }
+
+    /**
+     * A font, as painted with a given context.
+     */
+    private static final class Key {
+        private final Font font;
+        private final FontRenderContext context;
+        private final int hash;
+
+        Key(Font font, FontRenderContext context) {
+            this.font = font;
+            this.context = context;
+            this.hash = 31 * font.hashCode() + context.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return hash == k.hash && font.equals(k.font) && context.equals(k.context);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * The metrics of a font, with the values used to lay out text worked out
+     * in advance.
+     */
+    public static final class Metrics {
+        private final FontMetrics fontMetrics;
+        private final int lineHeight;
+        private final int leading;
+        private final int ascent;
+        /**
+         * The advances of the first 256 characters.
+         */
+        private final int[] advances;
+
+        private Metrics(FontMetrics fontMetrics) {
+            this.fontMetrics = fontMetrics;
+            this.leading = fontMetrics.getLeading();
+            this.lineHeight = fontMetrics.getHeight() - leading;
+            this.ascent = fontMetrics.getAscent();
+            this.advances = fontMetrics.getWidths();
+        }
+
+        public FontMetrics getFontMetrics() {
+            return fontMetrics;
+        }
+
+        public Font getFont() {
+            return fontMetrics.getFont();
+        }
+
+        /**
+         * @return The height of a line, not counting the leading.
+         */
+        public int getLineHeight() {
+            return lineHeight;
+        }
+
+        public int getLeading() {
+            return leading;
+        }
+
+        public int getAscent() {
+            return ascent;
+        }
+
+        /**
+         * Gets the advance of a character, from a table for the first 256
+         * ones.
+         *
+         * @param codePoint A character.
+         * @return Its advance, in pixels.
+         */
+        public int charWidth(int codePoint) {
+            return codePoint >= 0 && codePoint < 256 ? advances[codePoint] : fontMetrics.charWidth(codePoint);
+        }
+
+        /**
+         * Gets the width of a text, adding up the advances of its characters.
+         *
+         * @param text A text.
+         * @param from Where the text starts.
+         * @param to   Where the text ends, excluded.
+         * @return Its width, in pixels.
+         */
+        public int charsWidth(CharSequence text, int from, int to) {
+            int w = 0;
+            for (int i = from; i < to; ) {
+                int cp = Character.codePointAt(text, i);
+                w += charWidth(cp);
+                i += Character.charCount(cp);
+            }
+            return w;
+        }
+
+        /**
+         * @param text A text.
+         * @return Its width, as measured by the FontMetrics.
+         */
+        public int stringWidth(String text) {
+            return fontMetrics.stringWidth(text);
+        }
+    }
+}
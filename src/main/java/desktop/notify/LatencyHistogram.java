@@ -0,0 +1,106 @@
+/*
+ * DS Desktop Notify
+ * A small utility to show small notifications in your Desktop anytime!
+ */
+package desktop.notify;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts how long something takes, in a fixed set of buckets, so percentiles
+ * can be read at any time without keeping every sample.
+ * <p>
+ * Values below {@value #LINEAR} go in a bucket of their own. Above that,
+ * every power of two is split in {@value #SUB_BUCKETS} buckets, so the value
+ * reported for a percentile is never more than 12.5% off. Recording a value
+ * is a couple of atomic increments: no locks and no allocation, so it can be
+ * left on all the time.
+ *
+ * @author DragShot
+ */
+class LatencyHistogram {
+
+    private static final int LINEAR = 16;
+    private static final int SUB_BUCKETS = 8;
+    private static final int SUB_BITS = 3;
+    private static final int BUCKETS = LINEAR + (63 - 4) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Adds a value.
+     *
+     * @param value The value, usually in nanoseconds. Negative values count
+     *              as 0.
+     */
+    void record(long value) {
+        if (value < 0) value = 0;
+        counts.incrementAndGet(bucket(value));
+        count.incrementAndGet();
+        total.addAndGet(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Gets the value below which a given share of the values fall.
+     *
+     * @param percentile The share of values, from 0 to 100.
+     * @return The highest value the bucket of that percentile can hold, or 0
+     * if nothing was recorded.
+     */
+    long percentile(double percentile) {
+        long n = count.get();
+        if (n == 0) return 0L;
+        long rank = (long) Math.ceil(n * Math.min(Math.max(percentile, 0.0), 100.0) / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= Math.max(rank, 1)) return Math.min(upperBound(i), max.get());
+        }
+        return max.get();
+    }
+
+    long getCount() {
+        return count.get();
+    }
+
+    long getTotal() {
+        return total.get();
+    }
+
+    long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Forgets every value recorded so far.
+     */
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0L);
+        }
+        count.set(0L);
+        total.set(0L);
+        max.set(0L);
+    }
+
+    static int bucket(long value) {
+        if (value < LINEAR) return (int) value;
+        int exp = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exp - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR + (exp - 4) * SUB_BUCKETS + sub;
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < LINEAR) return bucket;
+        int exp = (bucket - LINEAR) / SUB_BUCKETS + 4;
+        int sub = (bucket - LINEAR) % SUB_BUCKETS;
+        long base = 1L << exp;
+        long width = base >>> SUB_BITS;
+        return base + (sub + 1) * width - 1;
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * DS Desktop Notify
+ * A small utility to show small notifications in your Desktop anytime!
+ */
+package desktop.notify;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the vertical position of every notification on screen, so they don't
+ * have to be worked out again on every frame.
+ * <p>
+ * Notifications are stacked from the bottom of the window upwards, with a gap
+ * of {@link #GAP} pixels between them. For each one, this index stores its
+ * height and the distance from the bottom of the window to its bottom edge,
+ * which is the sum of the heights (and gaps) of the ones below it. Those sums
+ * are updated incrementally as notifications are added, removed or resized,
+ * and since they only grow, finding the notification at a given point is a
+ * binary search.
+ * <p>
+ * Not thread-safe, it belongs to the painting thread.
+ *
+ * @author DragShot
+ */
+class LayoutIndex {
+
+    /**
+     * The space left between two notifications, in pixels.
+     */
+    static final int GAP = 5;
+
+    private int[] starts = new int[16];
+    private int[] heights = new int[16];
+    private int size = 0;
+
+    /**
+     * Adds a notification on top of the stack.
+     *
+     * @param height Its height.
+     */
+    void add(int height) {
+        if (size == starts.length) {
+            starts = Arrays.copyOf(starts, size << 1);
+            heights = Arrays.copyOf(heights, size << 1);
+        }
+        starts[size] = getTotal();
+        heights[size] = height;
+        size++;
+    }
+
+    /**
+     * Removes a notification from the stack, moving the ones above it down.
+     *
+     * @param i Its position, from the bottom.
+     */
+    void remove(int i) {
+        int delta = heights[i] + GAP;
+        size--;
+        System.arraycopy(starts, i + 1, starts, i, size - i);
+        System.arraycopy(heights, i + 1, heights, i, size - i);
+        for (int j = i; j < size; j++) {
+            starts[j] -= delta;
+        }
+    }
+
+    /**
+     * Changes the height of a notification, moving the ones above it.
+     *
+     * @param i      Its position, from the bottom.
+     * @param height Its new height.
+     */
+    void resize(int i, int height) {
+        int delta = height - heights[i];
+        if (delta == 0) return;
+        heights[i] = height;
+        for (int j = i + 1; j < size; j++) {
+            starts[j] += delta;
+        }
+    }
+
+    /**
+     * Finds the notification at a given height.
+     *
+     * @param d The distance from the bottom of the window.
+     * @return The position of the notification, or -1 if there's none there.
+     */
+    int find(int d) {
+        int i = lastStartingBelow(d);
+        return i >= 0 && d < starts[i] + heights[i] ? i : -1;
+    }
+
+    /**
+     * Counts how many notifications fit entirely in a given height.
+     *
+     * @param room The height of the window.
+     * @return The amount of notifications, from the bottom, that fit.
+     */
+    int fitting(int room) {
+        int lo = 0, hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (starts[mid] + heights[mid] < room) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * @return The index of the last notification with its bottom edge below
+     * the given distance, or -1.
+     */
+    private int lastStartingBelow(int d) {
+        int lo = 0, hi = size - 1, found = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (starts[mid] < d) {
+                found = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @param i The position of a notification, from the bottom.
+     * @return The distance from the bottom of the window to its bottom edge.
+     */
+    int getStart(int i) {
+        return starts[i];
+    }
+
+    /**
+     * @param i The position of a notification, from the bottom.
+     * @return Its height, as last recorded.
+     */
+    int getHeight(int i) {
+        return heights[i];
+    }
+
+    /**
+     * @return The height taken by the whole stack, gaps included.
+     */
+    int getTotal() {
+        return size == 0 ? 0 : starts[size - 1] + heights[size - 1] + GAP;
+    }
+
+    int size() {
+        return size;
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * DS Desktop Notify
+ * A small utility to show small notifications in your Desktop anytime!
+ */
+package desktop.notify;
+
+import desktop.notify.model.Notify;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Splits the text of notifications in lines on a pool of background threads,
+ * so the threads that post them don't have to wait for it.
+ * <p>
+ * Notifications are handed over in the order they were submitted, no matter
+ * which ones are laid out first: each one gets a number, and the ones that
+ * get ready early wait in a reorder buffer until all those before them are
+ * ready too. The threads go away after a while without work.
+ *
+ * @author DragShot
+ */
+final class LayoutPipeline {
+
+    private final DriverMetrics metrics;
+    private final ThreadPoolExecutor pool;
+
+    private final AtomicLong submitted = new AtomicLong();
+    /**
+     * The notifications laid out ahead of their turn, by number.
+     */
+    private final Map<Long, Runnable> ready = new HashMap<>();
+    /**
+     * The number of the next notification to hand over.
+     */
+    private long next = 0L;
+
+    /**
+     * Creates a pipeline.
+     *
+     * @param threads The amount of threads to lay out with.
+     * @param metrics The metrics the time spent on each notification is
+     *                reported to.
+     */
+    LayoutPipeline(int threads, DriverMetrics metrics) {
+        this.metrics = metrics;
+        threads = Math.max(threads, 1);
+        AtomicInteger count = new AtomicInteger();
+        pool = new ThreadPoolExecutor(threads, threads, 30L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "DesktopNotify Layout Thread-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        pool.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Lays out a notification in the background, then hands it over.
+     *
+     * @param window    The notification.
+     * @param width     The width of the notification.
+     * @param handOff   What to do with the notification once laid out. Runs
+     *                  on one of the threads of the pool, after the ones
+     *                  submitted earlier.
+     * @param onFailure What to do instead if the notification couldn't be
+     *                  laid out. Runs in turn as well, so the ones after it
+     *                  don't wait forever.
+     */
+    void submit(Notify window, int width, Runnable handOff, Consumer<Throwable> onFailure) {
+        run(() -> {
+            window.setW(width);
+            long start = System.nanoTime();
+            window.sortMessage();
+            metrics.layout(System.nanoTime() - start);
+        }, handOff, onFailure);
+    }
+
+    /**
+     * Lays out a batch of notifications in the background, then hands it over
+     * as a whole, in the same turn.
+     *
+     * @param batch     The notifications. The list must support fast random
+     *                  access.
+     * @param width     The width of the notifications.
+     * @param handOff   What to do with the batch once laid out.
+     * @param onFailure What to do instead if any of them couldn't be laid
+     *                  out.
+     * @see #submit(Notify, int, Runnable, Consumer)
+     */
+    void submitAll(List<Notify> batch, int width, Runnable handOff, Consumer<Throwable> onFailure) {
+        run(() -> BatchLayout.layout(batch, width, metrics), handOff, onFailure);
+    }
+
+    private void run(Runnable layout, Runnable handOff, Consumer<Throwable> onFailure) {
+        long number = submitted.getAndIncrement();
+        pool.execute(() -> {
+            Runnable next = handOff;
+            try {
+                layout.run();
+            } catch (RuntimeException | Error ex) {
+                next = () -> onFailure.accept(ex);
+            }
+            handOff(number, next);
+        });
+    }
+
+    private void handOff(long number, Runnable handOff) {
+        synchronized (ready) {
+            ready.put(number, handOff);
+            Runnable r;
+            while ((r = ready.remove(next)) != null) {
+                next++;
+                try {
+                    r.run();
+                } catch (RuntimeException | Error ex) {
+                    report(ex);
+                }
+            }
+        }
+    }
+
+    private static void report(Throwable ex) {
+        Thread t = Thread.currentThread();
+        t.getUncaughtExceptionHandler().uncaughtException(t, ex);
+    }
+
+    int getThreads() {
+        return pool.getMaximumPoolSize();
+    }
+
+    /**
+     * Sets the amount of threads to lay out with.
+     *
+     * @param threads The amount of threads.
+     */
+    synchronized void setThreads(int threads) {
+        threads = Math.max(threads, 1);
+        if (threads > pool.getMaximumPoolSize()) {
+            pool.setMaximumPoolSize(threads);
+            pool.setCorePoolSize(threads);
+        } else {
+            pool.setCorePoolSize(threads);
+            pool.setMaximumPoolSize(threads);
+        }
+    }
+
+    /**
+     * @return The amount of notifications and batches submitted and not
+     * handed over yet.
+     */
+    int getPendingCount() {
+        synchronized (ready) {
+            return (int) (submitted.get() - next);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * DS Desktop Notify
+ * A small utility to show small notifications in your Desktop anytime!
+ */
+package desktop.notify;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The mouse pointer over a surface, as reported by one thread and read by the
+ * one painting the frames.
+ * <p>
+ * The position and the clicks not taken yet are packed in a single
+ * <code>long</code>, so they are always seen together (a click is never read
+ * with the position of a later move) without any locks: the clicks go in the
+ * upper half, and the position plus one in the lower half, 0 meaning the
+ * pointer is out of the surface.
+ *
+ * @author DragShot
+ */
+final class MouseState {
+
+    private static final long POSITION = 0xFFFFFFFFL;
+    private static final long CLICK = 1L << 32;
+
+    private final AtomicLong state = new AtomicLong();
+
+    /**
+     * Moves the pointer.
+     *
+     * @param y The vertical position, or -1 if the pointer left the surface.
+     */
+    void move(int y) {
+        long s;
+        do {
+            s = state.get();
+        } while (!state.compareAndSet(s, (s & ~POSITION) | pack(y)));
+    }
+
+    /**
+     * Adds a click, at the given position.
+     *
+     * @param y The vertical position of the pointer.
+     */
+    void click(int y) {
+        long s;
+        do {
+            s = state.get();
+        } while (!state.compareAndSet(s, ((s & ~POSITION) + CLICK) | pack(y)));
+    }
+
+    /**
+     * Adds a click, wherever the pointer is.
+     */
+    void click() {
+        state.addAndGet(CLICK);
+    }
+
+    /**
+     * @return The vertical position of the pointer, or -1 if it isn't over the
+     * surface.
+     */
+    int getY() {
+        return (int) (state.get() & POSITION) - 1;
+    }
+
+    /**
+     * Tells if there were clicks since the last time, and forgets them.
+     *
+     * @return <code>true</code> if there was any click.
+     */
+    boolean takeClick() {
+        long s;
+        do {
+            s = state.get();
+            if ((s & ~POSITION) == 0) return false;
+        } while (!state.compareAndSet(s, s & POSITION));
+        return true;
+    }
+
+    private static long pack(int y) {
+        return y < 0 ? 0L : (y + 1L) & POSITION;
+    }
+}
@@ -11,6 +11,10 @@ import desktop.notify.theme.NotifyTheme;
 
 import java.awt.Image;
 import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Utilitary object that allows easy and flexible build of notifications that
@@ -56,7 +60,13 @@ public class NotificationBuilder {
     private NotifyDirection orientation;
     private long timeOut;
     private ActionListener action;
+    private long actionTimeout;
+    private boolean actionOnEdt;
     private NotifyTheme theme;
+    private String coalescingKey;
+    private Integer priority;
+    private DisplayRouting routing;
+    private String display;
 
     /**
      * Default constructor.
@@ -149,6 +159,32 @@ public class NotificationBuilder {
         return this;
     }
 
+    /**
+     * Sets the time the action of the notification to build may take before
+     * being interrupted. By default, the one set through
+     * {@link DesktopNotify#setActionTimeout(long)} is used.
+     *
+     * @param millis The time, in milliseconds, or 0 to use the default one.
+     * @return This builder, just to chain calls.
+     */
+    public NotificationBuilder setActionTimeout(long millis) {
+        this.actionTimeout = millis;
+        return this;
+    }
+
+    /**
+     * Makes the action of the notification to build run on the EDT, for
+     * actions that deal with Swing components. Actions run on a thread of
+     * their own otherwise, so they don't freeze the application.
+     *
+     * @param onEdt <code>true</code> to run the action on the EDT.
+     * @return This builder, just to chain calls.
+     */
+    public NotificationBuilder setActionOnEdt(boolean onEdt) {
+        this.actionOnEdt = onEdt;
+        return this;
+    }
+
     /**
      * Sets the theme to use in the notification to build.
      *
@@ -160,6 +196,59 @@ public class NotificationBuilder {
         return this;
     }
 
+    /**
+     * Sets the coalescing key for the notification to build. While a
+     * notification with this key is on queue or on screen, posting another one
+     * with the same key will just restart its timeout and increase the
+     * counter displayed on it.
+     *
+     * @param coalescingKey The key, or {@code null} to show every copy.
+     * @return This builder, just to chain calls.
+     */
+    public NotificationBuilder setCoalescingKey(String coalescingKey) {
+        this.coalescingKey = coalescingKey;
+        return this;
+    }
+
+    /**
+     * Sets the priority of the notification to build. When there's no room on
+     * screen, notifications with higher priority are shown first. By default
+     * this depends on the notification type.
+     *
+     * @param priority The priority.
+     * @return This builder, just to chain calls.
+     */
+    public NotificationBuilder setPriority(int priority) {
+        this.priority = priority;
+        return this;
+    }
+
+    /**
+     * Sets the display the notification to build will be shown on, when there
+     * is more than one. By default, the one set through
+     * {@link DesktopNotify#setDefaultRouting(DisplayRouting)} is used.
+     *
+     * @param routing The routing policy.
+     * @return This builder, just to chain calls.
+     */
+    public NotificationBuilder setRouting(DisplayRouting routing) {
+        this.routing = routing;
+        return this;
+    }
+
+    /**
+     * Sets a specific display for the notification to build to be shown on.
+     * This implies the {@link DisplayRouting#NAMED} routing policy.
+     *
+     * @param display The display ID, as given by {@link DesktopNotify#getDisplays()}.
+     * @return This builder, just to chain calls.
+     */
+    public NotificationBuilder setDisplay(String display) {
+        this.display = display;
+        this.routing = DisplayRouting.NAMED;
+        return this;
+    }
+
     /**
      * Builds a new <code>DesktopNotify</code> object. Once you've got to this
      * point, apend a call to {@link Notify#show} to make it appear
@@ -177,10 +266,50 @@ public class NotificationBuilder {
         Notify pane = new Notify(title, message, type, orientation, icon);
         pane.setTimeout(timeOut);
         pane.setAction(action);
+        pane.setActionTimeout(actionTimeout);
+        pane.setActionOnEdt(actionOnEdt);
         pane.setTheme(theme);
+        pane.setCoalescingKey(coalescingKey);
+        if (priority != null) pane.setPriority(priority);
+        pane.setRouting(routing);
+        pane.setDisplay(display);
         return pane;
     }
 
+    /**
+     * Builds one notification per message given, all of them with the rest
+     * of the settings of this builder. Meant to be shown together through
+     * {@link DesktopNotify#showAll(Collection)}.
+     *
+     * @param messages The messages, one per notification.
+     * @return The notifications, in the same order as the messages.
+     */
+    public List<Notify> buildAll(Collection<String> messages) {
+        String message = this.message;
+        List<Notify> panes = new ArrayList<>(messages.size());
+        try {
+            for (String m : messages) {
+                this.message = m;
+                panes.add(build());
+            }
+        } finally {
+            this.message = message;
+        }
+        return panes;
+    }
+
+    /**
+     * Builds one notification per message given, all of them with the rest
+     * of the settings of this builder.
+     *
+     * @param messages The messages, one per notification.
+     * @return The notifications, in the same order as the messages.
+     * @see #buildAll(Collection)
+     */
+    public List<Notify> buildAll(String... messages) {
+        return buildAll(Arrays.asList(messages));
+    }
+
     /**
      * Clears all saved data and sets this builder in blank, so you can start
      * from scratch again.
@@ -192,7 +321,13 @@ public class NotificationBuilder {
         type = NotifyType.NONE;
         timeOut = 0L;
         action = null;
+        actionTimeout = 0L;
+        actionOnEdt = false;
         theme = null;
+        coalescingKey = null;
+        priority = null;
+        routing = null;
+        display = null;
     }
 
     /**
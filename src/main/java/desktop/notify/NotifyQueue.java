@@ -0,0 +1,499 @@
+/*
+ * DS Desktop Notify
+ * A small utility to show small notifications in your Desktop anytime!
+ */
+package desktop.notify;
+
+import desktop.notify.model.Notify;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The queue of notifications handled by the Driver.
+ * <p>
+ * Any thread can post notifications here without blocking, they are pushed
+ * into a lock-free queue. The thread that paints the notifications is the
+ * only one that touches the list of windows: it picks up the new
+ * notifications on every frame through {@link #drain(int)}, and it's free to
+ * iterate and remove items from that list without racing the producers.
+ * <p>
+ * Notifications wait on a {@link PriorityScheduler} until there's room for
+ * them on screen, so the most important ones are shown first. The ones
+ * waiting are never touched on a frame; in virtualized mode, a
+ * {@link SummaryTile} on top of the stack tells how many are left.
+ * <p>
+ * The queue holds up to a given capacity of notifications, counting both the
+ * ones waiting and the ones on screen. What happens to the notifications
+ * posted beyond that is decided by an {@link OverflowPolicy}.
+ *
+ * @author DragShot
+ */
+class NotifyQueue {
+
+    /**
+     * Notifications posted and not yet picked up by the painting thread.
+     */
+    private final ConcurrentLinkedQueue<Notify> incoming = new ConcurrentLinkedQueue<>();
+    /**
+     * The notifications on screen, owned by the painting thread.
+     */
+    private final List<Notify> windows = new ArrayList<>();
+    /**
+     * The notifications waiting for room on screen, owned by the painting
+     * thread.
+     */
+    private final PriorityScheduler pending = new PriorityScheduler();
+    /**
+     * The position of the notifications on screen, owned by the painting
+     * thread.
+     */
+    private final LayoutIndex layout = new LayoutIndex();
+    /**
+     * The notifications on queue by coalescing key, used to merge duplicates.
+     */
+    private final Map<String, Notify> keyed = new ConcurrentHashMap<>();
+    /**
+     * The notifications on queue by content, used to merge duplicates when
+     * the queue is full and the {@link OverflowPolicy#COALESCE} is in effect.
+     */
+    private final Map<String, Notify> duplicates = new ConcurrentHashMap<>();
+
+    private volatile int capacity = Integer.MAX_VALUE;
+    private volatile OverflowPolicy policy = OverflowPolicy.DROP_NEWEST;
+    private volatile long timeout = 1000L;
+    private volatile boolean virtualized = false;
+
+    /**
+     * The amount of notifications held, both incoming and on the list.
+     */
+    private final AtomicInteger size = new AtomicInteger();
+    /**
+     * Evictions requested by producers, performed by the painting thread.
+     */
+    private final AtomicInteger evictions = new AtomicInteger();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition roomAvailable = lock.newCondition();
+    private final AtomicInteger waiters = new AtomicInteger();
+
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * Checks if there's room for a new notification and reserves it. Safe to
+     * call from any thread, although it may block the caller if the
+     * {@link OverflowPolicy#BLOCK} policy is in effect.
+     *
+     * @param window The notification to add.
+     * @return <code>true</code> if the notification can be posted,
+     * <code>false</code> if it was discarded or merged into another one with
+     * the same coalescing key.
+     */
+    boolean admit(Notify window) {
+        String key = window.getCoalescingKey();
+        if (key != null && merge(keyed, key, window)) return false;
+        if (tryReserve()) return true;
+        switch (policy) {
+            case DROP_OLDEST_NON_STICKY:
+                size.incrementAndGet();
+                evictions.incrementAndGet();
+                return true;
+            case BLOCK:
+                if (awaitRoom()) return true;
+                break;
+            case COALESCE:
+                Notify other = duplicates.get(contentKey(window));
+                if (other != null && other.coalesce(System.currentTimeMillis())) {
+                    coalesced.incrementAndGet();
+                    if (key != null) keyed.remove(key, window);
+                    return false;
+                }
+                break;
+            default:
+                break;
+        }
+        rejected.incrementAndGet();
+        if (key != null) keyed.remove(key, window);
+        return false;
+    }
+
+    /**
+     * Looks for a notification on queue with the same key and merges the new
+     * one into it. If there's none, the new one takes its place in the index.
+     *
+     * @return <code>true</code> if the notification was merged into another.
+     */
+    private boolean merge(Map<String, Notify> index, String key, Notify window) {
+        long l = System.currentTimeMillis();
+        Notify other = index.putIfAbsent(key, window);
+        while (other != null && other != window) {
+            if (other.coalesce(l)) {
+                coalesced.incrementAndGet();
+                return true;
+            }
+            //That one already left the queue, take its place
+            if (index.replace(key, other, window)) return false;
+            other = index.putIfAbsent(key, window);
+        }
+        return false;
+    }
+
+    /**
+     * Adds a notification to the queue. Safe to call from any thread. The
+     * room for it must have been reserved through {@link #admit(Notify)}.
+     *
+     * @param window The notification to add.
+     */
+    void post(Notify window) {
+        window.setPostTime(System.nanoTime());
+        window.setPainted(false);
+        window.setDismissed(false);
+        if (policy == OverflowPolicy.COALESCE) {
+            duplicates.putIfAbsent(contentKey(window), window);
+        }
+        incoming.offer(window);
+    }
+
+    /**
+     * Adds a batch of notifications to the queue, all at once: the painting
+     * thread picks up either all of them or none. Safe to call from any
+     * thread. The room for each of them must have been reserved through
+     * {@link #admit(Notify)}.
+     *
+     * @param batch The notifications to add.
+     */
+    void postAll(Collection<Notify> batch) {
+        long now = System.nanoTime();
+        for (Notify window : batch) {
+            window.setPostTime(now);
+            window.setPainted(false);
+            window.setDismissed(false);
+            if (policy == OverflowPolicy.COALESCE) {
+                duplicates.putIfAbsent(contentKey(window), window);
+            }
+        }
+        //Appended as a single chain
+        incoming.addAll(batch);
+    }
+
+    /**
+     * Picks up the notifications posted since the last call, performs any
+     * evictions requested meanwhile and moves as many notifications as they
+     * fit on screen from the waiting ones into the list of windows, in order
+     * of priority. To be called only by the painting thread.
+     *
+     * @param room The height available to stack notifications on screen.
+     * @return The list of windows on screen, from bottom to top. It must not be
+     * modified by the caller, notifications are taken off screen through
+     * {@link #remove(int)}.
+     */
+    List<Notify> drain(int room) {
+        Notify window;
+        while ((window = incoming.poll()) != null) {
+            pending.add(window, window.getPostTime() / 1000000L);
+        }
+        while (evictions.get() > 0 && !isEmpty()) {
+            evictions.decrementAndGet();
+            evictOldest();
+        }
+        for (int i = 0; i < windows.size(); i++) {
+            layout.resize(i, windows.get(i).getH());
+        }
+        //Leave room for the summary tile on top
+        int reserved = virtualized ? SummaryTile.HEIGHT + LayoutIndex.GAP : 0;
+        while ((window = pending.peek()) != null) {
+            if (window.isMarkedForHide()) {
+                pending.poll();
+                window.setMarkedForHide(false);
+                window.setVisible(false);
+                release(window);
+            } else if (layout.getTotal() + window.getH() < room - reserved) {
+                pending.poll();
+                windows.add(window);
+                layout.add(window.getH());
+            } else {
+                break;
+            }
+        }
+        return windows;
+    }
+
+    /**
+     * Takes the notifications on screen back to wait for room, behind the
+     * ones that were already waiting, so the next ones get their turn. To be
+     * called only by the painting thread.
+     */
+    void nextPage() {
+        long l = System.nanoTime() / 1000000L;
+        //Behind every one waiting, whatever their priority
+        long page = pending.nextPage();
+        for (int i = windows.size() - 1; i >= 0; i--) {
+            Notify window = windows.get(i);
+            removeShown(i);
+            window.setPopupStart(0);
+            pending.add(window, l, page);
+        }
+    }
+
+    /**
+     * Discards the oldest notification that has a timeout, either on screen or
+     * waiting. If there's none, the newest notification goes away.
+     */
+    private void evictOldest() {
+        int shown = -1, waiting = -1, newest = -1;
+        long oldest = Long.MAX_VALUE, latest = Long.MIN_VALUE;
+        for (int i = 0; i < windows.size(); i++) {
+            Notify window = windows.get(i);
+            if (window.getTimeOut() != 0 && window.getPostTime() < oldest) {
+                oldest = window.getPostTime();
+                shown = i;
+            }
+        }
+        for (int i = 0; i < pending.size(); i++) {
+            Notify window = pending.get(i);
+            if (window.getTimeOut() != 0 && window.getPostTime() < oldest) {
+                oldest = window.getPostTime();
+                waiting = i;
+                shown = -1;
+            }
+            if (window.getPostTime() >= latest) {
+                latest = window.getPostTime();
+                newest = i;
+            }
+        }
+        Notify window;
+        if (waiting >= 0) {
+            window = pending.removeAt(waiting);
+            evicted.incrementAndGet();
+        } else if (shown >= 0) {
+            window = windows.get(shown);
+            removeShown(shown);
+            evicted.incrementAndGet();
+        } else if (newest >= 0) {
+            //Only sticky ones left, the newest one goes away
+            window = pending.removeAt(newest);
+            rejected.incrementAndGet();
+        } else {
+            window = windows.get(windows.size() - 1);
+            removeShown(windows.size() - 1);
+            rejected.incrementAndGet();
+        }
+        window.setVisible(false);
+        window.getShown().cancel(false);
+        release(window);
+    }
+
+    /**
+     * Removes a notification from the screen and frees the room it took. To
+     * be called only by the painting thread.
+     *
+     * @param i The position of the notification in the list of windows.
+     */
+    void remove(int i) {
+        Notify window = windows.get(i);
+        removeShown(i);
+        release(window);
+    }
+
+    private void removeShown(int i) {
+        windows.remove(i);
+        layout.remove(i);
+    }
+
+    /**
+     * @return The position of the notifications on screen, matching the list
+     * of windows returned by {@link #drain(int)}. To be called only by the
+     * painting thread.
+     */
+    LayoutIndex getLayout() {
+        return layout;
+    }
+
+    /**
+     * Frees the room taken by a notification that left the queue, or that was
+     * admitted and never made it to the queue. Safe to call from any thread.
+     *
+     * @param window The notification removed.
+     */
+    void release(Notify window) {
+        window.retire();
+        if (window.getCoalescingKey() != null) keyed.remove(window.getCoalescingKey(), window);
+        duplicates.remove(contentKey(window), window);
+        size.decrementAndGet();
+        if (waiters.get() > 0) {
+            lock.lock();
+            try {
+                roomAvailable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Safe to call from any thread.
+     *
+     * @return <code>true</code> if there are notifications posted that haven't
+     * been picked up by the painting thread yet.
+     */
+    boolean hasIncoming() {
+        return !incoming.isEmpty();
+    }
+
+    /**
+     * To be called only by the painting thread.
+     *
+     * @return <code>true</code> if there aren't any notifications on queue,
+     * neither posted nor being displayed.
+     */
+    boolean isEmpty() {
+        return windows.isEmpty() && pending.size() == 0 && incoming.isEmpty();
+    }
+
+    /**
+     * Takes one slot of the queue, if there's any left.
+     */
+    private boolean tryReserve() {
+        int n;
+        do {
+            n = size.get();
+            if (n >= capacity) return false;
+        } while (!size.compareAndSet(n, n + 1));
+        return true;
+    }
+
+    /**
+     * Waits for a slot of the queue to be released, up to the overflow
+     * timeout.
+     */
+    private boolean awaitRoom() {
+        long nanos = TimeUnit.MILLISECONDS.toNanos(timeout);
+        lock.lock();
+        waiters.incrementAndGet();
+        try {
+            while (!tryReserve()) {
+                if (nanos <= 0L) return false;
+                nanos = roomAvailable.awaitNanos(nanos);
+            }
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            waiters.decrementAndGet();
+            lock.unlock();
+        }
+    }
+
+    private static String contentKey(Notify window) {
+        return window.getType() + "\u0000" + window.getTitle() + "\u0000" + window.getMessage();
+    }
+
+    /**
+     * @return The amount of notifications held, both waiting and on screen.
+     */
+    int size() {
+        return size.get();
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    void setCapacity(int capacity) {
+        this.capacity = capacity <= 0 ? Integer.MAX_VALUE : capacity;
+    }
+
+    OverflowPolicy getPolicy() {
+        return policy;
+    }
+
+    void setPolicy(OverflowPolicy policy) {
+        if (policy != null) this.policy = policy;
+    }
+
+    long getTimeout() {
+        return timeout;
+    }
+
+    void setTimeout(long timeout) {
+        this.timeout = timeout < 0 ? 0 : timeout;
+    }
+
+    /**
+     * Copies the notifications held, on screen first, then the ones waiting
+     * and the ones just posted. Safe to call from any thread, as a best
+     * effort: the ones moving between lists meanwhile may be missed or seen
+     * twice.
+     *
+     * @return The notifications.
+     */
+    List<Notify> snapshot() {
+        List<Notify> all = new ArrayList<>(size.get() + 8);
+        for (Notify window : windows.toArray(new Notify[0])) {
+            if (window != null) all.add(window);
+        }
+        pending.copyTo(all);
+        all.addAll(incoming);
+        return all;
+    }
+
+    /**
+     * @return The amount of notifications waiting for room on screen. To be
+     * called only by the painting thread.
+     */
+    int pendingCount() {
+        return pending.size();
+    }
+
+    long getAging() {
+        return pending.getAging();
+    }
+
+    void setAging(long aging) {
+        pending.setAging(aging);
+    }
+
+    boolean isVirtualized() {
+        return virtualized;
+    }
+
+    void setVirtualized(boolean virtualized) {
+        this.virtualized = virtualized;
+    }
+
+    /**
+     * Takes the capacity, policies and display options of another queue.
+     *
+     * @param other The queue to copy the settings from.
+     */
+    void copySettings(NotifyQueue other) {
+        capacity = other.capacity;
+        policy = other.policy;
+        timeout = other.timeout;
+        virtualized = other.virtualized;
+        pending.setAging(other.pending.getAging());
+    }
+
+    long getRejectedCount() {
+        return rejected.get();
+    }
+
+    long getEvictedCount() {
+        return evicted.get();
+    }
+
+    long getCoalescedCount() {
+        return coalesced.get();
+    }
+}
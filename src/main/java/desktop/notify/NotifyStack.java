@@ -0,0 +1,182 @@
+/*
+ * DS Desktop Notify
+ * A small utility to show small notifications in your Desktop anytime!
+ */
+package desktop.notify;
+
+import desktop.notify.model.Notify;
+
+import java.awt.Cursor;
+import java.awt.Graphics2D;
+import java.awt.event.ActionEvent;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The notifications of a display, stacked from the bottom up. This is where
+ * every frame is worked out: picking up new notifications, placing them,
+ * reacting to the mouse, painting and taking the expired ones away. It knows
+ * nothing about windows, frames are painted on any {@link RenderSurface}.
+ * <p>
+ * Once nothing changes on screen, painting a frame doesn't allocate any
+ * memory, so an idle stack of notifications puts no pressure on the garbage
+ * collector.
+ *
+ * @author DragShot
+ */
+class NotifyStack {
+
+    /**
+     * The notifications on queue for this stack.
+     */
+    final NotifyQueue queue = new NotifyQueue();
+    private final RepaintScheduler scheduler;
+    private final SummaryTile summary = new SummaryTile();
+    private final DriverMetrics metrics;
+    private final ActionExecutor actions;
+
+    /**
+     * Set by the last frame if there were no notifications left.
+     */
+    volatile boolean finished = true;
+    /**
+     * When this stack needs the next frame, and whether it was animating on
+     * the last one.
+     */
+    volatile long deadline = Long.MAX_VALUE;
+    volatile boolean animating = false;
+    /**
+     * The amount of notifications on screen after the last frame.
+     */
+    volatile int visible = 0;
+
+    /**
+     * Creates an empty stack.
+     *
+     * @param scheduler The scheduler that tells the frame rate.
+     * @param metrics   The metrics the frames are reported to.
+     * @param actions   The executor for the actions of the notifications.
+     */
+    NotifyStack(RepaintScheduler scheduler, DriverMetrics metrics, ActionExecutor actions) {
+        this.scheduler = scheduler;
+        this.metrics = metrics;
+        this.actions = actions;
+    }
+
+    /**
+     * Paints a frame. To be called only by the painting thread.
+     *
+     * @param rd      The <code>Graphics2D</code> object to use for painting.
+     * @param surface The surface being painted.
+     * @param l       The time of the frame.
+     */
+    void render(Graphics2D rd, RenderSurface surface, long l) {
+        long start = System.nanoTime();
+        int mouseY = surface.getMouseY();
+        boolean clicked = surface.takeClick();
+        finished = false;
+
+        int x = 0, height = surface.getHeight();
+        long next = Long.MAX_VALUE;
+        //Only what moves on this stack, other displays may be idle
+        boolean moved = false;
+
+        List<Notify> windows = queue.drain(height);
+        LayoutIndex layout = queue.getLayout();
+        if (queue.isEmpty()) finished = true;
+
+        int cur = Cursor.DEFAULT_CURSOR;
+        int hovered = mouseY < 0 ? -1 : layout.find(height - mouseY);
+        int fitting = layout.fitting(height);
+
+        int top = height - layout.getTotal();
+        if (queue.isVirtualized() && queue.pendingCount() > 0) top -= SummaryTile.HEIGHT;
+        surface.paintBackground(rd, Math.max(top, 0));
+
+        for (int i = windows.size() - 1; i >= 0; i--) {
+            Notify window = windows.get(i);
+            if (i < fitting) {
+                int y = height - layout.getStart(i) - window.getH();
+                if (window.getPopupStart() == 0) {
+                    window.setPopupStart(l);
+                }
+
+                boolean hover = i == hovered;
+                if (hover) {
+                    if (window.getAction() != null) {
+                        cur = Cursor.HAND_CURSOR;
+                    }
+                    if (clicked) {
+                        if (window.getAction() != null) {
+                            actions.execute(window.getAction(), new ActionEvent(window, ActionEvent.ACTION_PERFORMED, "fireAction", l, 0),
+                                    window.getActionTimeout(), window.isActionOnEdt());
+                        }
+                        if (window.expTime() == Long.MAX_VALUE) {
+                            window.setTimeout(l - window.getPopupStart() + 500);
+                            window.setDismissed(true);
+                        }
+                    }
+                }
+
+                window.render(x, y, hover, rd, l);
+                if (!window.isPainted()) {
+                    window.setPainted(true);
+                    metrics.firstPaint(System.nanoTime() - window.getPostTime());
+                    CompletableFuture<Notify> shown = window.getShown();
+                    if (shown.getNumberOfDependents() == 0) {
+                        shown.complete(window);
+                    } else {
+                        //Whatever was chained to it shouldn't run on this thread
+                        ForkJoinPool.commonPool().execute(() -> shown.complete(window));
+                    }
+                }
+
+                if (window.isMarkedForHide()) {
+                    window.setTimeout(l - window.getPopupStart() + 500);
+                    window.setMarkedForHide(false);
+                }
+                next = Math.min(next, window.nextFrameTime(l));
+                if (window.isAnimating(l)) moved = true;
+            } else {
+                window.setPopupStart(l);
+            }
+
+            if (l > window.expTime() || (i >= fitting && window.isMarkedForHide())) {
+                window.setMarkedForHide(false);
+                window.setVisible(false);
+                if (window.isDismissed()) metrics.dismissed();
+                else metrics.expired();
+                queue.remove(i);
+                moved = true;
+            }
+        }
+        int waiting = queue.pendingCount();
+        if (queue.isVirtualized() && waiting > 0) {
+            int y = height - layout.getTotal() - SummaryTile.HEIGHT;
+            boolean hover = mouseY >= 0 && mouseY > y && mouseY < y + SummaryTile.HEIGHT;
+            if (hover) {
+                cur = Cursor.HAND_CURSOR;
+                if (clicked) {
+                    queue.nextPage();
+                    moved = true;
+                }
+            }
+            summary.paint(rd, y, surface.getWidth(), waiting, hover, DesktopNotify.getDefaultTheme());
+        } else {
+            summary.dispose();
+        }
+
+        surface.setCursorType(cur);
+
+        if (finished) {
+            deadline = l;
+            animating = false;
+        } else {
+            deadline = moved ? l + scheduler.getFrameMillis() : next;
+            animating = moved;
+        }
+        visible = layout.fitting(height);
+        metrics.frameRendered(System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * DS Desktop Notify
+ * A small utility to show small notifications in your Desktop anytime!
+ */
+package desktop.notify;
+
+import java.awt.AlphaComposite;
+import java.awt.Cursor;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+
+/**
+ * A surface that paints into an image instead of a window. It doesn't need a
+ * display, so it works with <code>java.awt.headless=true</code>, and frames
+ * are painted when asked for at any point in time, with no waiting. The mouse
+ * pointer and clicks are simulated. The same <code>Graphics2D</code> is used
+ * for every frame.
+ *
+ * @author DragShot
+ */
+class OffscreenSurface implements RenderSurface {
+
+    private final BufferedImage image;
+    private final Graphics2D canvas;
+    private final MouseState mouse = new MouseState();
+    private volatile int cursor = Cursor.DEFAULT_CURSOR;
+
+    /**
+     * Creates an offscreen surface.
+     *
+     * @param width  The width of the surface.
+     * @param height The height of the surface.
+     */
+    OffscreenSurface(int width, int height) {
+        image = new BufferedImage(Math.max(width, 1), Math.max(height, 1), BufferedImage.TYPE_INT_ARGB_PRE);
+        canvas = image.createGraphics();
+    }
+
+    /**
+     * Paints a frame of a stack of notifications.
+     *
+     * @param stack The notifications to paint.
+     * @param l     The time of the frame.
+     */
+    synchronized void paintFrame(NotifyStack stack, long l) {
+        stack.render(canvas, this, l);
+    }
+
+    /**
+     * Moves the simulated mouse pointer.
+     *
+     * @param p The new position, or <code>null</code> to take it out of the
+     *          surface.
+     */
+    void moveMouse(Point p) {
+        mouse.move(p == null ? -1 : p.y);
+    }
+
+    /**
+     * Simulates a click at the current position of the mouse pointer.
+     */
+    void click() {
+        mouse.click();
+    }
+
+    /**
+     * @return The cursor type set by the last frame.
+     */
+    int getCursorType() {
+        return cursor;
+    }
+
+    /**
+     * @return The image painted so far.
+     */
+    BufferedImage getImage() {
+        return image;
+    }
+
+    @Override
+    public int getWidth() {
+        return image.getWidth();
+    }
+
+    @Override
+    public int getHeight() {
+        return image.getHeight();
+    }
+
+    @Override
+    public int getMouseY() {
+        return mouse.getY();
+    }
+
+    @Override
+    public boolean takeClick() {
+        return mouse.takeClick();
+    }
+
+    @Override
+    public void setCursorType(int type) {
+        cursor = type;
+    }
+
+    @Override
+    public void paintBackground(Graphics2D rd, int top) {
+        rd.setComposite(AlphaComposite.Clear);
+        rd.fillRect(0, 0, getWidth(), getHeight());
+        rd.setComposite(AlphaComposite.SrcOver);
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * DS Desktop Notify
+ * A small utility to show small notifications in your Desktop anytime!
+ */
+package desktop.notify;
+
+/**
+ * Defines what the Driver does with a new notification when its queue is
+ * already holding as many notifications as its capacity allows.
+ *
+ * @author DragShot
+ * @see DesktopNotify#setQueueCapacity(int)
+ * @see DesktopNotify#setOverflowPolicy(OverflowPolicy)
+ */
+public enum OverflowPolicy {
+    /**
+     * The new notification is discarded.
+     */
+    DROP_NEWEST,
+    /**
+     * The oldest notification on queue that has a timeout is discarded to
+     * make room for the new one. Notifications that wait for the user to click
+     * them are never discarded; if there are only such notifications on queue,
+     * the new one is discarded instead.
+     */
+    DROP_OLDEST_NON_STICKY,
+    /**
+     * The thread posting the notification waits until there's room for it,
+     * up to the time set through {@link DesktopNotify#setOverflowTimeout(long)}.
+     * If there's still no room after that, the new notification is discarded.
+     */
+    BLOCK,
+    /**
+     * If there's a notification on queue with the same title, message and
+     * type, the new one is merged into it, just like notifications sharing a
+     * coalescing key. Otherwise it is discarded.
+     */
+    COALESCE
+}
@@ -0,0 +1,203 @@
+/*
+ * DS Desktop Notify
+ * A small utility to show small notifications in your Desktop anytime!
+ */
+package desktop.notify;
+
+import desktop.notify.model.Notify;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Decides which of the notifications waiting for room on screen goes next.
+ * <p>
+ * This is a binary heap ordered by priority and then by arrival. In order to
+ * keep low priority notifications from waiting forever behind a constant
+ * stream of more important ones, they can gain one level of priority for
+ * every <i>aging</i> interval spent waiting. Since every notification on the
+ * heap ages at the same rate, this doesn't change the relative order of
+ * the ones already in, so the rank of each one is computed once on insertion
+ * and both {@link #add(Notify, long)} and {@link #poll()} stay in
+ * <i>O(log n)</i>.
+ * <p>
+ * Notifications taken off screen to make room for the next ones go back in a
+ * later {@link #nextPage() page}, which sorts behind every notification added
+ * before it, whatever their priority.
+ * <p>
+ * Not thread-safe, it belongs to the painting thread.
+ *
+ * @author DragShot
+ */
+class PriorityScheduler {
+
+    private Notify[] heap = new Notify[16];
+    private long[] ranks = new long[16];
+    private long[] seqs = new long[16];
+    private long[] pages = new long[16];
+    private int size = 0;
+    private long seq = 0L;
+    /**
+     * The last page handed out.
+     */
+    private long page = 0L;
+    /**
+     * The time a notification needs to wait in order to gain one level of
+     * priority, or 0 to disable aging.
+     */
+    private long aging = 10000L;
+
+    /**
+     * Adds a notification to the heap.
+     *
+     * @param window The notification.
+     * @param l      The time of arrival.
+     */
+    void add(Notify window, long l) {
+        add(window, l, 0L);
+    }
+
+    /**
+     * Adds a notification to the heap, in a given page.
+     *
+     * @param window The notification.
+     * @param l      The time of arrival.
+     * @param page   The page, as given by {@link #nextPage()}, or 0 to go
+     *               ahead of every page.
+     */
+    void add(Notify window, long l, long page) {
+        if (size == heap.length) {
+            int cap = size << 1;
+            heap = Arrays.copyOf(heap, cap);
+            ranks = Arrays.copyOf(ranks, cap);
+            seqs = Arrays.copyOf(seqs, cap);
+            pages = Arrays.copyOf(pages, cap);
+        }
+        //With aging, a notification that waited "aging" ms longer than another
+        //one is worth one more level of priority. Without it, arrival only
+        //breaks the ties.
+        long rank = aging > 0 ? l - window.getPriority() * aging : -window.getPriority();
+        siftUp(size++, window, rank, seq++, page);
+    }
+
+    /**
+     * Starts a new page. Notifications added to it go behind the ones in the
+     * heap.
+     *
+     * @return The page.
+     */
+    long nextPage() {
+        return ++page;
+    }
+
+    /**
+     * @return The notification that goes next, without removing it, or
+     * <code>null</code> if the heap is empty.
+     */
+    Notify peek() {
+        return size == 0 ? null : heap[0];
+    }
+
+    /**
+     * Removes the notification that goes next.
+     *
+     * @return The notification, or <code>null</code> if the heap is empty.
+     */
+    Notify poll() {
+        return size == 0 ? null : removeAt(0);
+    }
+
+    /**
+     * Removes the notification stored at a given position of the heap.
+     *
+     * @param i The position, as in {@link #get(int)}.
+     * @return The notification removed.
+     */
+    Notify removeAt(int i) {
+        Notify window = heap[i];
+        int last = --size;
+        if (i != last) {
+            Notify moved = heap[last];
+            long rank = ranks[last], s = seqs[last], p = pages[last];
+            heap[last] = null;
+            siftDown(i, moved, rank, s, p);
+            if (heap[i] == moved) siftUp(i, moved, rank, s, p);
+        } else {
+            heap[last] = null;
+        }
+        return window;
+    }
+
+    /**
+     * Gets the notification stored at a given position of the heap. Positions
+     * don't follow any particular order, this is only meant for scanning.
+     *
+     * @param i The position, between 0 and {@link #size()}.
+     * @return The notification.
+     */
+    Notify get(int i) {
+        return heap[i];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Copies the notifications in the heap, in no particular order. The only
+     * method that may be called from other threads, as a best effort: the
+     * ones moving meanwhile may be missed or seen twice.
+     *
+     * @param out The list to add them to.
+     */
+    void copyTo(List<Notify> out) {
+        for (Notify window : heap) {
+            if (window != null) out.add(window);
+        }
+    }
+
+    long getAging() {
+        return aging;
+    }
+
+    void setAging(long aging) {
+        this.aging = aging < 0 ? 0 : aging;
+    }
+
+    private static boolean less(long page, long rank, long s, long otherPage, long otherRank, long otherSeq) {
+        if (page != otherPage) return page < otherPage;
+        return rank < otherRank || (rank == otherRank && s < otherSeq);
+    }
+
+    private void siftUp(int i, Notify window, long rank, long s, long p) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!less(p, rank, s, pages[parent], ranks[parent], seqs[parent])) break;
+            set(i, heap[parent], ranks[parent], seqs[parent], pages[parent]);
+            i = parent;
+        }
+        set(i, window, rank, s, p);
+    }
+
+    private void siftDown(int i, Notify window, long rank, long s, long p) {
+        int half = size >>> 1;
+        while (i < half) {
+            int child = (i << 1) + 1;
+            int right = child + 1;
+            if (right < size && less(pages[right], ranks[right], seqs[right], pages[child], ranks[child], seqs[child])) {
+                child = right;
+            }
+            if (!less(pages[child], ranks[child], seqs[child], p, rank, s)) break;
+            set(i, heap[child], ranks[child], seqs[child], pages[child]);
+            i = child;
+        }
+        set(i, window, rank, s, p);
+    }
+
+    private void set(int i, Notify window, long rank, long s, long p) {
+        heap[i] = window;
+        ranks[i] = rank;
+        seqs[i] = s;
+        pages[i] = p;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * DS Desktop Notify
+ * A small utility to show small notifications in your Desktop anytime!
+ */
+package desktop.notify;
+
+import java.awt.Graphics2D;
+
+/**
+ * Something a {@link NotifyStack} can be painted on, and where the user input
+ * comes from. The window on screen is one of these, and an
+ * {@link OffscreenSurface} is another one that needs no display at all.
+ *
+ * @author DragShot
+ */
+interface RenderSurface {
+
+    /**
+     * @return The width of the surface.
+     */
+    int getWidth();
+
+    /**
+     * @return The height of the surface.
+     */
+    int getHeight();
+
+    /**
+     * @return The vertical position of the mouse pointer relative to the
+     * surface, or -1 if it isn't over it.
+     */
+    int getMouseY();
+
+    /**
+     * Tells if the surface was clicked since the last time, and forgets the
+     * click.
+     *
+     * @return <code>true</code> if there was a click.
+     */
+    boolean takeClick();
+
+    /**
+     * Sets the mouse cursor to show over the surface.
+     *
+     * @param type One of the types defined in {@link java.awt.Cursor}.
+     */
+    void setCursorType(int type);
+
+    /**
+     * Paints whatever goes behind the notifications, at the beginning of a
+     * frame.
+     *
+     * @param rd  The <code>Graphics2D</code> object to use for painting.
+     * @param top Where the notifications begin, from the top of the surface.
+     */
+    void paintBackground(Graphics2D rd, int top);
+}
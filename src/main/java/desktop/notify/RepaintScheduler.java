@@ -0,0 +1,120 @@
+/*
+ * DS Desktop Notify
+ * A small utility to show small notifications in your Desktop anytime!
+ */
+package desktop.notify;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Decides when the driver thread has to paint the next frame.
+ * <p>
+ * Frames are only painted at full rate while something is actually moving on
+ * screen (a notification popping in or out, or a hover fade). The rest of the
+ * time the driver thread stays parked until the next deadline reported by the
+ * last painted frame, or until someone calls {@link #requestFrame()} (a new
+ * notification, a mouse event, a notification marked for hiding, etc).
+ *
+ * @author DragShot
+ */
+class RepaintScheduler {
+
+    /**
+     * The minimum time between two frames, in milliseconds.
+     */
+    private volatile long frameMillis = 20;
+
+    /**
+     * The time when the next frame is due, as reported by the last frame.
+     */
+    private volatile long deadline = 0L;
+    /**
+     * Set when an event requires a new frame as soon as possible.
+     */
+    private volatile boolean dirty = true;
+    /**
+     * Set by the last frame if there was an animation running on it.
+     */
+    private volatile boolean animating = false;
+    /**
+     * The thread waiting for frames, if any.
+     */
+    private volatile Thread driver;
+    private long lastFrame = 0L;
+
+    private final AtomicLong frames = new AtomicLong();
+    private final AtomicLong idleFrames = new AtomicLong();
+
+    /**
+     * Asks for a new frame to be painted as soon as possible. Safe to call
+     * from any thread.
+     */
+    void requestFrame() {
+        dirty = true;
+        LockSupport.unpark(driver);
+    }
+
+    /**
+     * Called at the end of every painted frame to tell when the next one is
+     * needed.
+     *
+     * @param next      The time when the next frame is due, or
+     *                  <code>Long.MAX_VALUE</code> if there's nothing to wait for.
+     * @param animating <code>true</code> if something moved on this frame.
+     */
+    void frameRendered(long next, boolean animating) {
+        long old = deadline;
+        this.animating = animating;
+        deadline = next;
+        if (next < old) LockSupport.unpark(driver);
+    }
+
+    /**
+     * Blocks the calling thread until the next frame is due. To be used only
+     * from the driver thread.
+     *
+     * @return The amount of frames that were due since the last one, while
+     * something was being animated, and went by without being painted.
+     */
+    long awaitNextFrame() {
+        driver = Thread.currentThread();
+        long d;
+        while (!dirty && (d = deadline) > System.currentTimeMillis()) {
+            LockSupport.parkUntil(this, d);
+        }
+        long wait = lastFrame + frameMillis - System.currentTimeMillis();
+        if (wait > 0) LockSupport.parkNanos(this, wait * 1000000L);
+        dirty = false;
+        long now = System.currentTimeMillis();
+        //Animations want a frame every frameMillis, the ones in between are lost
+        long missed = animating && lastFrame > 0L ? (now - lastFrame) / frameMillis - 1L : 0L;
+        lastFrame = now;
+        frames.incrementAndGet();
+        if (!animating) idleFrames.incrementAndGet();
+        return Math.max(missed, 0L);
+    }
+
+    long getFrameMillis() {
+        return frameMillis;
+    }
+
+    void setFrameMillis(long frameMillis) {
+        this.frameMillis = Math.max(frameMillis, 1L);
+    }
+
+    /**
+     * @return The amount of frames requested so far.
+     */
+    long getFrameCount() {
+        return frames.get();
+    }
+
+    /**
+     * @return The amount of frames requested so far while nothing was being
+     * animated on screen.
+     */
+    long getIdleFrameCount() {
+        return idleFrames.get();
+    }
+}
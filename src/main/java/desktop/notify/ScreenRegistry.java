@@ -0,0 +1,213 @@
+/*
+ * DS Desktop Notify
+ * A small utility to show small notifications in your Desktop anytime!
+ */
+package desktop.notify;
+
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsDevice;
+import java.awt.GraphicsEnvironment;
+import java.awt.Insets;
+import java.awt.MouseInfo;
+import java.awt.PointerInfo;
+import java.awt.Rectangle;
+import java.awt.Toolkit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the area available for notifications on every display.
+ * <p>
+ * Working out the usable bounds of a display means asking the system for the
+ * space taken by taskbars and docks, which is too slow to do every time a
+ * notification is shown. The bounds are computed once per display and kept
+ * until the display configuration changes. In order to notice that, the
+ * devices and their current configuration are compared against the ones seen
+ * last time: the AWT replaces the configuration objects of a device when its
+ * resolution or layout changes, so a cheap identity check is enough.
+ * <p>
+ * Without a display at all (with <code>java.awt.headless=true</code>, for
+ * instance) there's a single {@link #HEADLESS_ID virtual} one instead, so
+ * notifications can still be routed and painted offscreen.
+ * <p>
+ * Thread-safe, lookups don't block and never see a half-built snapshot.
+ *
+ * @author DragShot
+ */
+class ScreenRegistry {
+
+    /**
+     * The usable area of a display, as seen at some point.
+     */
+    static final class Screen {
+        final String id;
+        /**
+         * The display and its configuration, <code>null</code> for the
+         * virtual one used when there are none.
+         */
+        final GraphicsDevice device;
+        final GraphicsConfiguration config;
+        final Rectangle bounds;
+
+        Screen(String id, GraphicsDevice device, GraphicsConfiguration config, Rectangle bounds) {
+            this.id = id;
+            this.device = device;
+            this.config = config;
+            this.bounds = bounds;
+        }
+    }
+
+    /**
+     * The ID of the display used when there are none.
+     */
+    static final String HEADLESS_ID = "headless";
+    /**
+     * The size of the display used when there are none.
+     */
+    private static final Rectangle HEADLESS_BOUNDS = new Rectangle(0, 0, 1920, 1080);
+
+    private final Supplier<GraphicsDevice[]> devices;
+    private final Supplier<GraphicsDevice> primary;
+    private final Function<GraphicsConfiguration, Insets> insets;
+
+    /**
+     * The screens found last time, primary one first.
+     */
+    private volatile Screen[] screens = new Screen[0];
+    private final AtomicLong refreshes = new AtomicLong();
+
+    /**
+     * Creates a registry for the displays of the local graphics environment.
+     */
+    ScreenRegistry() {
+        this(() -> GraphicsEnvironment.isHeadless() ? new GraphicsDevice[0]
+                        : GraphicsEnvironment.getLocalGraphicsEnvironment().getScreenDevices(),
+                () -> GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice(),
+                gc -> Toolkit.getDefaultToolkit().getScreenInsets(gc));
+    }
+
+    /**
+     * Creates a registry for a given set of displays.
+     *
+     * @param devices Gives the displays available.
+     * @param primary Gives the primary display.
+     * @param insets  Gives the space taken by the system on a display.
+     */
+    ScreenRegistry(Supplier<GraphicsDevice[]> devices, Supplier<GraphicsDevice> primary,
+                   Function<GraphicsConfiguration, Insets> insets) {
+        this.devices = devices;
+        this.primary = primary;
+        this.insets = insets;
+    }
+
+    /**
+     * Gets the display a notification should go to.
+     *
+     * @param routing The routing policy of the notification.
+     * @param id      The display ID, for the {@link DisplayRouting#NAMED}
+     *                policy.
+     * @return The display to use.
+     */
+    Screen resolve(DisplayRouting routing, String id) {
+        Screen[] current = validate();
+        if (routing == DisplayRouting.MOUSE) {
+            PointerInfo pointer = current[0].device == null ? null : MouseInfo.getPointerInfo();
+            if (pointer != null) id = pointer.getDevice().getIDstring();
+        } else if (routing != DisplayRouting.NAMED) {
+            id = null;
+        }
+        return find(current, id);
+    }
+
+    /**
+     * Gets a display by its ID.
+     *
+     * @param id The display ID.
+     * @return The display, or the primary one if there's no display with
+     * that ID.
+     */
+    Screen get(String id) {
+        return find(validate(), id);
+    }
+
+    /**
+     * @return The IDs of the displays available, primary one first, or the
+     * ID of the virtual one if there are none.
+     */
+    String[] getIds() {
+        Screen[] current = validate();
+        String[] ids = new String[current.length];
+        for (int i = 0; i < current.length; i++) {
+            ids[i] = current[i].id;
+        }
+        return ids;
+    }
+
+    /**
+     * Forgets the bounds computed so far, so they are computed again on the
+     * next lookup.
+     */
+    void invalidate() {
+        screens = new Screen[0];
+    }
+
+    /**
+     * @return How many times the bounds have been computed.
+     */
+    long getRefreshCount() {
+        return refreshes.get();
+    }
+
+    private static Screen find(Screen[] current, String id) {
+        if (id != null) {
+            for (Screen screen : current) {
+                if (screen.id.equals(id)) return screen;
+            }
+        }
+        return current[0];
+    }
+
+    /**
+     * Checks that the displays are the same ones seen last time, and computes
+     * their bounds again if they aren't.
+     */
+    private Screen[] validate() {
+        Screen[] current = screens;
+        GraphicsDevice[] found = devices.get();
+        if (found.length == 0) {
+            if (current.length == 1 && current[0].device == null) return current;
+            Screen[] fresh = {new Screen(HEADLESS_ID, null, null, new Rectangle(HEADLESS_BOUNDS))};
+            screens = fresh;
+            refreshes.incrementAndGet();
+            return fresh;
+        }
+        boolean same = found.length == current.length && found.length > 0;
+        for (int i = 0; same && i < found.length; i++) {
+            Screen screen = find(current, found[i].getIDstring());
+            same = screen.device == found[i] && screen.config == found[i].getDefaultConfiguration();
+        }
+        if (same) return current;
+        GraphicsDevice main = primary.get();
+        Screen[] fresh = new Screen[found.length];
+        int n = 1;
+        for (GraphicsDevice device : found) {
+            Screen screen = measure(device);
+            //If the primary one isn't listed, the last one takes its place
+            if (device == main || (fresh[0] == null && n == found.length)) fresh[0] = screen;
+            else fresh[n++] = screen;
+        }
+        screens = fresh;
+        refreshes.incrementAndGet();
+        return fresh;
+    }
+
+    private Screen measure(GraphicsDevice device) {
+        GraphicsConfiguration config = device.getDefaultConfiguration();
+        Rectangle bounds = config.getBounds();
+        Insets in = insets.apply(config);
+        bounds = new Rectangle(bounds.x + in.left, bounds.y + in.top,
+                bounds.width - in.left - in.right, bounds.height - in.top - in.bottom);
+        return new Screen(device.getIDstring(), device, config, bounds);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * DS Desktop Notify
+ * A small utility to show small notifications in your Desktop anytime!
+ */
+package desktop.notify;
+
+import desktop.notify.theme.NotifyTheme;
+
+import java.awt.AlphaComposite;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+
+/**
+ * The tile shown on top of the stack when there are more notifications
+ * waiting than the ones that fit on screen. It tells how many of them are
+ * left, and clicking it brings up the next page. It is painted once into an
+ * image, and painted again only when any of that changes.
+ *
+ * @author DragShot
+ */
+class SummaryTile {
+
+    /**
+     * The height of the tile, in pixels.
+     */
+    static final int HEIGHT = 30;
+
+    private BufferedImage image;
+    private GraphicsConfiguration imageConfig;
+    private NotifyTheme imageTheme;
+    private int imageCount = -1;
+    private boolean imageHover;
+
+    /**
+     * Lets go of the image of the tile, while it isn't shown.
+     */
+    void dispose() {
+        if (image == null) return;
+        image.flush();
+        image = null;
+        imageConfig = null;
+        imageTheme = null;
+        imageCount = -1;
+    }
+
+    /**
+     * Paints the tile.
+     *
+     * @param rd    The <code>Graphics2D</code> object to use for painting.
+     * @param y     Where to start painting (Y)
+     * @param w     The width of the tile.
+     * @param count The amount of notifications waiting.
+     * @param hover <code>true</code> if the mouse pointer is over the tile.
+     * @param theme The theme to paint the tile with.
+     */
+    void paint(Graphics2D rd, int y, int w, int count, boolean hover, NotifyTheme theme) {
+        GraphicsConfiguration gc = rd.getDeviceConfiguration();
+        if (image == null || imageConfig != gc || image.getWidth() != w || imageTheme != theme
+                || imageCount != count || imageHover != hover) {
+            if (image == null || imageConfig != gc || image.getWidth() != w) {
+                if (image != null) image.flush();
+                image = gc.createCompatibleImage(Math.max(w, 1), HEIGHT, Transparency.TRANSLUCENT);
+                imageConfig = gc;
+            }
+            Graphics2D g = image.createGraphics();
+            g.setComposite(AlphaComposite.Clear);
+            g.fillRect(0, 0, w, HEIGHT);
+            g.setComposite(AlphaComposite.SrcOver);
+            paintTile(g, w, count, hover, theme);
+            g.dispose();
+            imageTheme = theme;
+            imageCount = count;
+            imageHover = hover;
+        }
+        rd.drawImage(image, 0, y, null);
+    }
+
+    private void paintTile(Graphics2D rd, int w, int count, boolean hover, NotifyTheme theme) {
+        String label = "+" + count + " more";
+        rd.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        rd.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        rd.setColor(theme.getBgGrad()[hover ? 21 : 0]);
+        rd.fillRoundRect(0, 0, w, HEIGHT, 20, 20);
+        rd.setColor(theme.getBorderColor());
+        rd.drawRoundRect(0, 0, w - 1, HEIGHT - 1, 20, 20);
+        rd.setColor(theme.getContentColor());
+        rd.setFont(theme.getContentFont());
+        FontMetrics ftm = rd.getFontMetrics();
+        rd.drawString(label, (w - ftm.stringWidth(label)) / 2,
+                (HEIGHT - ftm.getHeight()) / 2 + ftm.getAscent());
+    }
+}
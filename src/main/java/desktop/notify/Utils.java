@@ -16,6 +16,7 @@ import java.awt.Image;
 import java.awt.Rectangle;
 import java.awt.Robot;
 import java.awt.Toolkit;
+import java.awt.image.BufferedImage;
 import java.lang.reflect.Method;
 import java.util.Arrays;
 
@@ -88,6 +89,10 @@ public class Utils {
      * The area available to deploy the notifications window.
      */
     static Rectangle screen;
+    /**
+     * The Robot used to capture the screen, created on first use.
+     */
+    private static Robot robot;
 
     static {
         String str = System.getProperty("os.name").toLowerCase();
@@ -155,6 +160,18 @@ public class Utils {
         return nativeTrans;
     }
 
+    /**
+     * Checks if windows can be given an arbitrary shape on a display, so the
+     * parts left out show whatever is behind them.
+     *
+     * @param device The display.
+     * @return <code>true</code> if shaped windows are supported.
+     */
+    public static boolean isShapingSupported(GraphicsDevice device) {
+        return device.isWindowTranslucencySupported(GraphicsDevice
+                .WindowTranslucency.PERPIXEL_TRANSPARENT);
+    }
+
     /**
      * Creates a background for a fake effect of translucency.
      *
@@ -162,13 +179,28 @@ public class Utils {
      * @return A <code>BufferedImage</code> with the area behind the JDialog.
      */
     public static Image getBackgroundCap(Rectangle bounds) {
-        Image bg;
-        try {
-            Robot robot = new Robot();
-            bg = robot.createScreenCapture(bounds);
-        } catch (AWTException ex) {
-            bg = null;
+        return captureScreen(bounds);
+    }
+
+    /**
+     * Captures an area of the screen, reusing the same Robot every time.
+     *
+     * @param bounds The area to capture.
+     * @return The image captured, or <code>null</code> if the screen can't be
+     * captured.
+     */
+    static BufferedImage captureScreen(Rectangle bounds) {
+        Robot r;
+        synchronized (Utils.class) {
+            if (robot == null) {
+                try {
+                    robot = new Robot();
+                } catch (AWTException | SecurityException ex) {
+                    return null;
+                }
+            }
+            r = robot;
         }
-        return bg;
+        return r.createScreenCapture(bounds);
     }
 }
\ No newline at end of file
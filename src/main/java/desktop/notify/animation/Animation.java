@@ -0,0 +1,105 @@
+/*
+ * DS Desktop Notify
+ * A small utility to show small notifications in your Desktop anytime!
+ */
+package desktop.notify.animation;
+
+/**
+ * A value that moves from one point to another over a given time. The value
+ * is always computed from the time elapsed since the animation started, so it
+ * looks the same no matter how often it gets painted.
+ * <p>
+ * Every time an animation is started, the {@link Timeline} it belongs to is
+ * told until when it will be running.
+ *
+ * @author DragShot
+ */
+public class Animation {
+
+    private final Timeline timeline;
+    private final Easing easing;
+    private long start = 0L;
+    private long duration = 0L;
+    private double from;
+    private double to;
+
+    /**
+     * Creates an animation that stays still at a given value until started.
+     *
+     * @param timeline The timeline to report to.
+     * @param easing   The easing curve to apply.
+     * @param value    The initial value.
+     */
+    public Animation(Timeline timeline, Easing easing, double value) {
+        this.timeline = timeline;
+        this.easing = easing;
+        this.from = value;
+        this.to = value;
+    }
+
+    /**
+     * Starts the animation.
+     *
+     * @param start    The time when it starts, may be in the past.
+     * @param duration How long it takes, in milliseconds.
+     * @param from     The value at the start.
+     * @param to       The value at the end.
+     */
+    public void start(long start, long duration, double from, double to) {
+        this.start = start;
+        this.duration = Math.max(duration, 0L);
+        this.from = from;
+        this.to = to;
+        timeline.track(start, getEnd());
+    }
+
+    /**
+     * Moves the animation towards a new value from wherever it is now. The
+     * time it takes is proportional to the distance left, so the speed is the
+     * same no matter if it was halfway or not.
+     *
+     * @param l        The current time.
+     * @param target   The value to move to.
+     * @param duration How long it takes to move across the whole range (a
+     *                 distance of 1).
+     */
+    public void retarget(long l, double target, long duration) {
+        if (target == to) return;
+        double current = value(l);
+        start(l, (long) (duration * Math.abs(target - current)), current, target);
+    }
+
+    /**
+     * @param l The current time.
+     * @return The value at the given time.
+     */
+    public double value(long l) {
+        if (l >= start + duration) return to;
+        if (l <= start) return from;
+        double t = (l - start) / (double) duration;
+        return from + (to - from) * easing.apply(t);
+    }
+
+    /**
+     * @param l The current time.
+     * @return <code>true</code> if the value is still moving.
+     */
+    public boolean isRunning(long l) {
+        return l >= start && l < getEnd();
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return start + duration;
+    }
+
+    /**
+     * @return The value this animation moves to.
+     */
+    public double getTarget() {
+        return to;
+    }
+}
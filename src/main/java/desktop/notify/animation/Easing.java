@@ -0,0 +1,47 @@
+/*
+ * DS Desktop Notify
+ * A small utility to show small notifications in your Desktop anytime!
+ */
+package desktop.notify.animation;
+
+/**
+ * Easing curves, mapping the progress of an animation (from 0 to 1) to the
+ * progress of the value being animated (from 0 to 1).
+ *
+ * @author DragShot
+ */
+public enum Easing {
+    LINEAR {
+        @Override
+        public double apply(double t) {
+            return t;
+        }
+    },
+    EASE_IN_CUBIC {
+        @Override
+        public double apply(double t) {
+            return t * t * t;
+        }
+    },
+    EASE_OUT_CUBIC {
+        @Override
+        public double apply(double t) {
+            double u = 1 - t;
+            return 1 - u * u * u;
+        }
+    },
+    EASE_IN_OUT_CUBIC {
+        @Override
+        public double apply(double t) {
+            if (t < 0.5) return 4 * t * t * t;
+            double u = -2 * t + 2;
+            return 1 - u * u * u / 2;
+        }
+    };
+
+    /**
+     * @param t The progress of the animation, from 0 to 1.
+     * @return The progress of the value, from 0 to 1.
+     */
+    public abstract double apply(double t);
+}
@@ -0,0 +1,46 @@
+/*
+ * DS Desktop Notify
+ * A small utility to show small notifications in your Desktop anytime!
+ */
+package desktop.notify.animation;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps track of the animations in progress, so the Driver knows when it
+ * can stop painting frames because nothing is moving.
+ *
+ * @author DragShot
+ */
+public class Timeline {
+
+    /**
+     * The time when the last animation started so far ends.
+     */
+    private final AtomicLong activeUntil = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * Registers an animation running between two points in time.
+     *
+     * @param start The time when the animation starts.
+     * @param end   The time when the animation ends.
+     */
+    void track(long start, long end) {
+        if (end > start) activeUntil.accumulateAndGet(end, Math::max);
+    }
+
+    /**
+     * @param l The current time.
+     * @return <code>true</code> if any animation is running at the given time.
+     */
+    public boolean isActive(long l) {
+        return l < activeUntil.get();
+    }
+
+    /**
+     * @return The time when all the animations started so far are over.
+     */
+    public long getActiveUntil() {
+        return activeUntil.get();
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * DS Desktop Notify
+ * A small utility to show small notifications in your Desktop anytime!
+ */
+package desktop.notify.model;
+
+import desktop.notify.FontMetricsRegistry;
+
+import java.awt.Font;
+import java.awt.font.LineBreakMeasurer;
+import java.awt.font.TextAttribute;
+import java.awt.font.TextLayout;
+import java.text.AttributedString;
+import java.text.Bidi;
+import java.text.BreakIterator;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Splits the texts of the notifications in lines, picking the way that fits
+ * each text.
+ * <p>
+ * Plain text (Latin, Greek, Cyrillic and Armenian, without combining marks,
+ * along with common punctuation and symbols) goes through the {@link LineWrapper}, which breaks at the spaces and is the
+ * fastest. Text that needs no shaping nor reordering, such as CJK, is broken
+ * where the rules of its script allow it (between ideographs, but not before
+ * a closing mark, and so on) and measured a character at a time. Anything
+ * else is laid out by a <code>LineBreakMeasurer</code>: lines are broken
+ * where each script allows it (between Thai words, for instance),
+ * right-to-left runs are reordered, and every line keeps its
+ * <code>TextLayout</code> so it's painted exactly as measured.
+ * <p>
+ * Paragraphs (separated by <code>'\n'</code>) always start a new line, and
+ * their base direction follows their text unless told otherwise. Only
+ * paragraphs with right-to-left text in them can be told so.
+ * <p>
+ * Measuring a paragraph is the most expensive part of it, so the measurers
+ * of the last paragraphs are kept: a notification is usually laid out twice
+ * with slightly different widths, and a text is often shown more than once.
+ *
+ * @author DragShot
+ */
+final class LayoutEngine {
+
+    private static final int MAX_MEASURERS = 32;
+    /**
+     * The measurers of the last paragraphs laid out, taken out while in use.
+     */
+    private static final LinkedHashMap<MeasurerKey, LineBreakMeasurer> measurers =
+            new LinkedHashMap<>(64, 0.75f, true);
+
+    private LayoutEngine() {
+    }
+
+    /**
+     * Splits a text in lines.
+     *
+     * @param text       The text.
+     * @param font       The font to use.
+     * @param room       The width available.
+     * @param rtl        <code>true</code> to lay out every paragraph from
+     *                   right to left, <code>false</code> to let their text
+     *                   decide.
+     * @param lineHeight The height of a line.
+     * @return The lines.
+     */
+    static LineCache.Lines layout(String text, Font font, int room, boolean rtl, int lineHeight) {
+        if (isPlain(text)) {
+            String[] out = LineWrapper.wrap(text, FontMetricsRegistry.get(font), room);
+            return new LineCache.Lines(out, out.length * lineHeight);
+        }
+        boolean unshaped = !TextBlock.requiresLayout(text);
+        BreakIterator breaks = unshaped ? BreakIterator.getLineInstance() : null;
+        ArrayList<String> lines = new ArrayList<>();
+        ArrayList<TextLayout> layouts = new ArrayList<>();
+        int end = text.length();
+        //Trailing line breaks don't make empty lines, like with plain text
+        while (end > 0 && text.charAt(end - 1) == '\n') end--;
+        int from = 0;
+        while (from < end) {
+            int to = text.indexOf('\n', from);
+            if (to < 0 || to > end) to = end;
+            if (to == from) {
+                lines.add("");
+                layouts.add(null);
+            } else if (unshaped) {
+                breakUnshaped(text.substring(from, to), FontMetricsRegistry.get(font), room, breaks, lines);
+            } else {
+                breakParagraph(text.substring(from, to), font, Math.max(room, 1), rtl, lines, layouts);
+            }
+            from = to + 1;
+        }
+        String[] out = lines.toArray(new String[0]);
+        return new LineCache.Lines(out, out.length * lineHeight,
+                unshaped ? null : layouts.toArray(new TextLayout[0]));
+    }
+
+    /**
+     * Breaks a paragraph that needs no shaping nor reordering, such as CJK
+     * text, where the rules of its script allow it, measuring a character at
+     * a time. Much cheaper than a <code>LineBreakMeasurer</code>. Spaces at
+     * the end of a line don't count for its width.
+     */
+    private static void breakUnshaped(String paragraph, FontMetricsRegistry.Metrics ftm, int room,
+                                      BreakIterator breaks, ArrayList<String> lines) {
+        breaks.setText(paragraph);
+        int lineStart = 0, lineW = 0;
+        for (int pos = breaks.first(), next = breaks.next(); next != BreakIterator.DONE;
+             pos = next, next = breaks.next()) {
+            int visible = next;
+            while (visible > pos && Character.isWhitespace(paragraph.charAt(visible - 1))) visible--;
+            int segmentW = ftm.charsWidth(paragraph, pos, visible);
+            if (lineW + segmentW >= room && pos > lineStart) {
+                lines.add(paragraph.substring(lineStart, pos));
+                lineStart = pos;
+                lineW = 0;
+            }
+            if (segmentW >= room) {
+                //Too wide for a line of its own, break it anywhere
+                for (int i = pos; i < visible; ) {
+                    int cp = paragraph.codePointAt(i);
+                    int a = ftm.charWidth(cp);
+                    if (lineW + a >= room && i > lineStart) {
+                        lines.add(paragraph.substring(lineStart, i));
+                        lineStart = i;
+                        lineW = 0;
+                    }
+                    lineW += a;
+                    i += Character.charCount(cp);
+                }
+                lineW += ftm.charsWidth(paragraph, visible, next);
+            } else {
+                lineW += ftm.charsWidth(paragraph, pos, next);
+            }
+        }
+        lines.add(paragraph.substring(lineStart));
+    }
+
+    /**
+     * Tells if a text can be split at the spaces, measuring a character at a
+     * time.
+     */
+    static boolean isPlain(String text) {
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = text.charAt(i);
+            if (c < 0x0300 || (c >= 0x0370 && c < 0x0590) || TextBlock.isPlainSymbol(c)) continue;
+            return false;
+        }
+        return true;
+    }
+
+    private static void breakParagraph(String paragraph, Font font, int room, boolean rtl,
+                                       ArrayList<String> lines, ArrayList<TextLayout> layouts) {
+        //Text with nothing right-to-left in it keeps its own direction
+        rtl = rtl && Bidi.requiresBidi(paragraph.toCharArray(), 0, paragraph.length());
+        MeasurerKey key = new MeasurerKey(paragraph, font, rtl);
+        LineBreakMeasurer measurer;
+        synchronized (measurers) {
+            measurer = measurers.remove(key);
+        }
+        if (measurer == null) {
+            AttributedString str = new AttributedString(paragraph);
+            str.addAttribute(TextAttribute.FONT, font);
+            if (rtl) str.addAttribute(TextAttribute.RUN_DIRECTION, TextAttribute.RUN_DIRECTION_RTL);
+            measurer = new LineBreakMeasurer(str.getIterator(), BreakIterator.getLineInstance(),
+                    FontMetricsRegistry.DEFAULT_CONTEXT);
+        } else {
+            measurer.setPosition(0);
+        }
+        int length = paragraph.length();
+        while (measurer.getPosition() < length) {
+            int start = measurer.getPosition();
+            TextLayout layout = measurer.nextLayout(room);
+            lines.add(paragraph.substring(start, measurer.getPosition()));
+            layouts.add(layout);
+        }
+        synchronized (measurers) {
+            measurers.put(key, measurer);
+            Iterator<Map.Entry<MeasurerKey, LineBreakMeasurer>> it = measurers.entrySet().iterator();
+            while (measurers.size() > MAX_MEASURERS && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Forgets the paragraphs measured so far.
+     */
+    static void clear() {
+        synchronized (measurers) {
+            measurers.clear();
+        }
+    }
+
+    /**
+     * What a paragraph was measured for.
+     */
+    private static final class MeasurerKey {
+        private final String text;
+        private final Font font;
+        private final boolean rtl;
+        private final int hash;
+
+        MeasurerKey(String text, Font font, boolean rtl) {
+            this.text = text;
+            this.font = font;
+            this.rtl = rtl;
+            this.hash = 31 * (31 * text.hashCode() + font.hashCode()) + (rtl ? 1 : 0);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof MeasurerKey)) return false;
+            MeasurerKey k = (MeasurerKey) o;
+            return hash == k.hash && rtl == k.rtl && font.equals(k.font) && text.equals(k.text);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * DS Desktop Notify
+ * A small utility to show small notifications in your Desktop anytime!
+ */
+package desktop.notify.model;
+
+import java.awt.Font;
+import java.awt.font.TextLayout;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers how texts were split in lines, so notifications that repeat the
+ * same texts don't have to measure them again. Holds up to a given amount of
+ * texts, dropping the ones used least recently.
+ * <p>
+ * Thread-safe. The lines given out are shared, and must not be modified.
+ *
+ * @author DragShot
+ */
+final class LineCache {
+
+    /**
+     * What a text was split for.
+     */
+    static final class Key {
+        private final String text;
+        private final Font font;
+        private final int room;
+        private final NotifyDirection orientation;
+        private final boolean icon;
+        private final int hash;
+
+        Key(String text, Font font, int room, NotifyDirection orientation, boolean icon) {
+            this.text = text;
+            this.font = font;
+            this.room = room;
+            this.orientation = orientation;
+            this.icon = icon;
+            int h = text.hashCode();
+            h = 31 * h + font.hashCode();
+            h = 31 * h + room;
+            h = 31 * h + (orientation == null ? 0 : orientation.hashCode());
+            this.hash = 31 * h + (icon ? 1 : 0);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return hash == k.hash && room == k.room && icon == k.icon && orientation == k.orientation
+                    && font.equals(k.font) && text.equals(k.text);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * A text split in lines, and the height they take. Texts that needed
+     * complex layout keep the layout of each line too.
+     */
+    static final class Lines {
+        final String[] lines;
+        final int height;
+        /**
+         * The layout of each line, or <code>null</code> if they are plain
+         * text. An empty line has no layout.
+         */
+        final TextLayout[] layouts;
+
+        Lines(String[] lines, int height) {
+            this(lines, height, null);
+        }
+
+        Lines(String[] lines, int height, TextLayout[] layouts) {
+            this.lines = lines;
+            this.height = height;
+            this.layouts = layouts;
+        }
+    }
+
+    private final LinkedHashMap<Key, Lines> map = new LinkedHashMap<>(64, 0.75f, true);
+    private int limit;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param limit The maximum amount of texts to hold.
+     */
+    LineCache(int limit) {
+        this.limit = Math.max(limit, 0);
+    }
+
+    /**
+     * Gets the lines of a text, if known.
+     *
+     * @param key What the text was split for.
+     * @return The lines, or <code>null</code> if they aren't known.
+     */
+    Lines get(Key key) {
+        Lines lines;
+        synchronized (this) {
+            lines = map.get(key);
+        }
+        if (lines != null) hits.incrementAndGet();
+        else misses.incrementAndGet();
+        return lines;
+    }
+
+    /**
+     * Remembers the lines of a text.
+     *
+     * @param key   What the text was split for.
+     * @param lines The lines.
+     */
+    synchronized void put(Key key, Lines lines) {
+        if (limit == 0) return;
+        map.put(key, lines);
+        trim();
+    }
+
+    synchronized void setLimit(int limit) {
+        this.limit = Math.max(limit, 0);
+        trim();
+    }
+
+    synchronized int getLimit() {
+        return limit;
+    }
+
+    synchronized int size() {
+        return map.size();
+    }
+
+    synchronized void clear() {
+        map.clear();
+    }
+
+    private void trim() {
+        Iterator<Map.Entry<Key, Lines>> it = map.entrySet().iterator();
+        while (map.size() > limit && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    long getHits() {
+        return hits.get();
+    }
+
+    long getMisses() {
+        return misses.get();
+    }
+
+    long getEvictions() {
+        return evictions.get();
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * DS Desktop Notify
+ * A small utility to show small notifications in your Desktop anytime!
+ */
+package desktop.notify.model;
+
+import desktop.notify.FontMetricsRegistry;
+
+import java.util.ArrayList;
+
+/**
+ * Splits texts in lines that fit a given width, breaking them at the spaces.
+ * <p>
+ * The text is walked once, keeping the width of the line so far: every word
+ * is measured once, adding up the advances of its characters, which for the
+ * first 256 characters come from a table kept per font by the
+ * {@link FontMetricsRegistry}. Words too wide to fit
+ * on a line of their own (such as long URLs or stack traces) are broken at
+ * whatever character reaches the edge.
+ * <p>
+ * Lines are given with a space at the end of every word, including the last
+ * one, and paragraphs (separated by <code>'\n'</code>) always start a new
+ * line.
+ *
+ * @author DragShot
+ */
+final class LineWrapper {
+
+    private LineWrapper() {
+    }
+
+    /**
+     * Splits a text in lines.
+     *
+     * @param text The text.
+     * @param ftm  The metrics of the font to use.
+     * @param room The width available. Lines are always narrower than this,
+     *             unless a single character doesn't fit.
+     * @return The lines.
+     */
+    static String[] wrap(String text, FontMetricsRegistry.Metrics ftm, int room) {
+        int space = ftm.charWidth(' ');
+        ArrayList<String> lines = new ArrayList<>();
+        StringBuilder line = new StringBuilder();
+
+        int end = text.length();
+        //Trailing line breaks don't make empty lines
+        while (end > 0 && text.charAt(end - 1) == '\n') end--;
+        if (end == 0 && !text.isEmpty()) return new String[0];
+        int from = 0;
+        while (from <= end) {
+            int to = text.indexOf('\n', from);
+            if (to < 0 || to > end) to = end;
+            //Trailing spaces don't make empty words, unless there's nothing else
+            int last = to;
+            while (last > from && text.charAt(last - 1) == ' ') last--;
+            if (last > from || to == from) {
+                int lineW = 0;
+                int word = from;
+                while (word <= last) {
+                    int stop = text.indexOf(' ', word);
+                    if (stop < 0 || stop > last) stop = last;
+                    int wordW = ftm.charsWidth(text, word, stop);
+                    if (line.length() > 0 && lineW + wordW >= room) {
+                        lines.add(line.toString());
+                        line.setLength(0);
+                        lineW = 0;
+                    }
+                    if (line.length() == 0 && wordW >= room) {
+                        lineW = breakWord(text, word, stop, ftm, room, lines, line);
+                    } else {
+                        line.append(text, word, stop);
+                        lineW += wordW;
+                    }
+                    line.append(' ');
+                    lineW += space;
+                    word = stop + 1;
+                }
+            }
+            lines.add(line.toString());
+            line.setLength(0);
+            from = to + 1;
+        }
+        return lines.toArray(new String[0]);
+    }
+
+    /**
+     * Breaks a word too wide for a line of its own, adding every piece but
+     * the last one as a line.
+     *
+     * @return The width of the last piece, left in <code>line</code>.
+     */
+    private static int breakWord(String text, int from, int to, FontMetricsRegistry.Metrics ftm, int room,
+                                 ArrayList<String> lines, StringBuilder line) {
+        int start = from, pieceW = 0;
+        int i = from;
+        while (i < to) {
+            int cp = text.codePointAt(i);
+            int a = ftm.charWidth(cp);
+            if (pieceW + a >= room && i > start) {
+                lines.add(text.substring(start, i));
+                start = i;
+                pieceW = 0;
+            }
+            pieceW += a;
+            i += Character.charCount(cp);
+        }
+        line.append(text, start, to);
+        return pieceW;
+    }
+}
@@ -2,20 +2,59 @@ package desktop.notify.model;
 
 import desktop.notify.DesktopNotify;
 import desktop.notify.DesktopNotifyDriver;
+import desktop.notify.DisplayRouting;
+import desktop.notify.FontMetricsRegistry;
 import desktop.notify.NotificationBuilder;
+import desktop.notify.animation.Animation;
+import desktop.notify.animation.Easing;
 import desktop.notify.theme.NotifyTheme;
+import lombok.AccessLevel;
 import lombok.Data;
 import lombok.Getter;
 import lombok.Setter;
 
 import java.awt.*;
 import java.awt.event.ActionListener;
+import java.awt.font.TextLayout;
 import java.awt.geom.AffineTransform;
-import java.util.ArrayList;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Data
 public class Notify {
 
+    /**
+     * How long it takes for a notification to pop in or out, in milliseconds.
+     */
+    public static final long POP_MILLIS = 500L;
+    /**
+     * How long it takes for the highlight to fade in or out completely, in
+     * milliseconds.
+     */
+    public static final long HOVER_MILLIS = 400L;
+
+    /**
+     * The composites used to fade notifications in and out, one per alpha
+     * level, so animating doesn't create new ones on every frame.
+     */
+    private static final AlphaComposite[] FADES = new AlphaComposite[256];
+
+    static {
+        for (int i = 0; i < FADES.length; i++) {
+            FADES[i] = AlphaComposite.getInstance(AlphaComposite.SRC_OVER, i / 255f);
+        }
+    }
+
+    private static volatile boolean rasterCache = true;
+    /**
+     * The lines the texts have been split in lately.
+     */
+    private static final LineCache lineCache = new LineCache(256);
+    private static final AtomicLong rasterHits = new AtomicLong();
+    private static final AtomicLong rasterMisses = new AtomicLong();
+
     private String title;
     private String message;
     private Image icon;
@@ -45,10 +84,140 @@ public class Notify {
     private boolean visible = false;
     private boolean markedForHide = false;
     private int highl = 0;
+    private boolean hovered = false;
     private long popupStart = 0L;
     private long timeOut = 8000L;
     private int imgSize;
 
+    /**
+     * An optional key that identifies duplicates of this notification. While
+     * this one is on queue, any other notification posted with the same key
+     * is merged into this one instead of being displayed separately.
+     */
+    private String coalescingKey;
+    /**
+     * How many times this notification has been posted, counting the
+     * duplicates merged into it. Turns negative once it leaves the queue, so
+     * no more duplicates can be merged.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final AtomicInteger occurrences = new AtomicInteger(1);
+    /**
+     * The last time a duplicate was merged into this notification. Its
+     * timeout counts from here if that happened after it popped up.
+     */
+    private volatile long renewedAt = 0L;
+    /**
+     * The priority of this notification when waiting for room on screen, or
+     * {@code null} to use the default one for its type.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Integer priority;
+    /**
+     * The display this notification goes to, or {@code null} to use the
+     * default routing.
+     */
+    private DisplayRouting routing;
+    /**
+     * The ID of the display to use with the {@link DisplayRouting#NAMED}
+     * routing.
+     */
+    private String display;
+    /**
+     * The time this notification was posted to the Driver, as given by
+     * {@link System#nanoTime()}.
+     */
+    private long postTime = 0L;
+    /**
+     * <code>true</code> once this notification was painted on screen, since
+     * it was last posted.
+     */
+    private boolean painted = false;
+    /**
+     * <code>true</code> if this notification is going away because it was
+     * clicked, rather than by its timeout.
+     */
+    private boolean dismissed = false;
+    /**
+     * Completes once this notification is painted on screen, since it was
+     * last shown, or gets cancelled if it's discarded before that.
+     */
+    @Setter(AccessLevel.NONE)
+    private volatile CompletableFuture<Notify> shown = new CompletableFuture<>();
+    /**
+     * The animations for popping in, popping out and the hover highlight.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final Animation appear = new Animation(DesktopNotifyDriver.getTimeline(), Easing.EASE_OUT_CUBIC, 0);
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final Animation disappear = new Animation(DesktopNotifyDriver.getTimeline(), Easing.EASE_IN_CUBIC, 1);
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final Animation highlight = new Animation(DesktopNotifyDriver.getTimeline(), Easing.EASE_IN_OUT_CUBIC, 0);
+    /**
+     * The image of this notification, and what it was painted for.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private BufferedImage raster;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private GraphicsConfiguration rasterConfig;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private NotifyTheme rasterTheme;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private String[] rasterTlts, rasterMsgs;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Image rasterIcon;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private NotifyType rasterType;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private NotifyDirection rasterOrientation;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private int rasterHighl = -1, rasterCount;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private String occurrenceLabel;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private int occurrenceLabelCount, occurrenceLabelWidth;
+    /**
+     * The background gradient, and what it was created for.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private GradientPaint gradient;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Color gradientColor;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private int gradientStart, gradientEnd;
+    /**
+     * The lines of the title and the message with their glyphs and positions,
+     * worked out when the text is laid out.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private TextBlock titleBlock, messageBlock;
+    /**
+     * The lines of the title and the message as laid out, with their
+     * layouts if the text needed them.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private LineCache.Lines titleLines, messageLines;
+
     /**
      * An action to perform when the notification is clicked.
      * -- SETTER --
@@ -65,6 +234,16 @@ public class Notify {
     @Getter
     @Setter
     private ActionListener action;
+    /**
+     * The time the action may take before being interrupted, in milliseconds,
+     * or 0 to use the default one.
+     */
+    private long actionTimeout = 0L;
+    /**
+     * <code>true</code> to run the action on the EDT, for actions that deal
+     * with Swing components. Actions run on a thread of their own otherwise.
+     */
+    private boolean actionOnEdt = false;
 
     /**
      * A protected constructor for a DesktopNotify object, called internally.
@@ -115,8 +294,76 @@ public class Notify {
         timeOut = millis < 0 ? 0 : millis;
     }
 
+    /**
+     * @return The priority of this notification when waiting for room on
+     * screen. Unless set otherwise, it depends on the notification type.
+     */
+    public int getPriority() {
+        return priority != null ? priority : type.getPriority();
+    }
+
+    /**
+     * Allows to set the priority of this notification when waiting for room on
+     * screen, overriding the default one for its type. When the screen is
+     * full, notifications with higher priority are shown first.
+     *
+     * @param priority The priority.
+     */
+    public void setPriority(int priority) {
+        this.priority = priority;
+    }
+
     public long expTime() {
-        return timeOut == 0 ? Long.MAX_VALUE : popupStart + timeOut;
+        return timeOut == 0 ? Long.MAX_VALUE : Math.max(popupStart, renewedAt) + timeOut;
+    }
+
+    /**
+     * Merges a duplicate into this notification: the occurrence counter is
+     * increased and the timeout starts over. Safe to call from any thread.
+     *
+     * @param l The current time.
+     * @return <code>true</code> if the duplicate was merged, <code>false</code>
+     * if this notification already left the queue.
+     */
+    public boolean coalesce(long l) {
+        int n;
+        do {
+            n = occurrences.get();
+            if (n <= 0) return false;
+        } while (!occurrences.compareAndSet(n, n + 1));
+        renewedAt = l;
+        return true;
+    }
+
+    /**
+     * Marks this notification as gone from the queue, so no more duplicates
+     * get merged into it, and lets go of its image. Called by the Driver.
+     */
+    public void retire() {
+        int n;
+        do {
+            n = occurrences.get();
+            if (n <= 0) break;
+        } while (!occurrences.compareAndSet(n, -n));
+        //Painted again from scratch if shown again
+        if (raster != null) raster.flush();
+        raster = null;
+        rasterConfig = null;
+        rasterTheme = null;
+        rasterTlts = rasterMsgs = null;
+        rasterIcon = null;
+        rasterType = null;
+        rasterOrientation = null;
+        rasterHighl = -1;
+        rasterCount = 0;
+    }
+
+    /**
+     * @return How many times this notification has been posted, counting the
+     * duplicates merged into it.
+     */
+    public int getOccurrences() {
+        return Math.abs(occurrences.get());
     }
 
     /**
@@ -124,10 +371,31 @@ public class Notify {
      * do it yourself.
      */
     public void show() {
-        markedForHide = false;
         DesktopNotifyDriver.postPane(this);
     }
 
+    /**
+     * Shows this notification, like {@link #show()}, and tells when it makes
+     * it to the screen.
+     *
+     * @return A future that completes once this notification is painted on
+     * screen, or gets cancelled if it's discarded before that.
+     */
+    public CompletableFuture<Notify> showAsync() {
+        DesktopNotifyDriver.postPane(this);
+        return shown;
+    }
+
+    /**
+     * Gets this notification ready to be posted again, in case it was shown
+     * before. Called by the Driver.
+     */
+    public void rearm() {
+        markedForHide = false;
+        if (shown.isDone()) shown = new CompletableFuture<>();
+        if (occurrences.get() <= 0) occurrences.set(1);
+    }
+
     /**
      * Hides this notification immediately if it is already being displayed.
      * The action itself is handled by the Driver, this method only marks this
@@ -135,6 +403,53 @@ public class Notify {
      */
     public void hide() {
         markedForHide = true;
+        DesktopNotifyDriver.requestRepaint();
+    }
+
+    /**
+     * Tells when this notification will need to be painted again, so the
+     * Driver doesn't have to repaint it while nothing changes on it.
+     *
+     * @param l The current time.
+     * @return <code>l</code> if this notification is being animated, the time
+     * when its exit animation starts, or <code>Long.MAX_VALUE</code> if it will
+     * stay as it is until the user clicks it.
+     */
+    public long nextFrameTime(long l) {
+        if (isAnimating(l)) return l;
+        long exp = expTime();
+        if (exp == Long.MAX_VALUE) return exp;
+        return Math.max(l, exp - POP_MILLIS);
+    }
+
+    /**
+     * @param l The current time.
+     * @return <code>true</code> if this notification is popping in, popping
+     * out or fading its highlight at the given time.
+     */
+    public boolean isAnimating(long l) {
+        return appear.isRunning(l) || disappear.isRunning(l) || highlight.isRunning(l);
+    }
+
+    /**
+     * Works out how much of this notification is visible at a given time,
+     * starting the pop in and pop out animations when needed.
+     *
+     * @param l The current time.
+     * @return The scale and opacity to paint this notification with, from 0
+     * to 1.
+     */
+    private double scaleAt(long l) {
+        if (appear.getStart() != popupStart) {
+            appear.start(popupStart, POP_MILLIS, 0, 1);
+        }
+        double d = appear.value(l);
+        long exp = expTime();
+        if (exp != Long.MAX_VALUE && l >= exp - POP_MILLIS) {
+            if (disappear.getEnd() != exp) disappear.start(exp - POP_MILLIS, POP_MILLIS, 1, 0);
+            d = Math.min(d, disappear.value(l));
+        }
+        return d;
     }
 
     /**
@@ -148,65 +463,133 @@ public class Notify {
      * @param l     The current time.
      */
     public void render(int x, int y, boolean hover, Graphics2D rd, long l) {
-        long i = l - popupStart;
-        if (i > 500) i = expTime() - l;
-        if (i < 0) i = 0;
-        if (i > 500) i = -1;
+        double d = scaleAt(l);
+        boolean still = d >= 1.0;
 
-        rd.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
-        rd.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        highlight.retarget(l, hover ? 1 : 0, HOVER_MILLIS);
+        highl = (int) Math.round(highlight.value(l) * 20);
+        hovered = hover;
 
-        AffineTransform trans = rd.getTransform();
+        //Only animations need more than a translation, keep the rest of the
+        //frames free of allocations
+        AffineTransform trans = still ? null : rd.getTransform();
         rd.translate(x, y);
 
-        if (i != -1) {
-            double d = i / 500.0;
+        if (!still) {
             rd.translate(w / 2 - ((w / 2) * d), h / 2 - ((h / 2) * d));
             rd.scale(d, d);
-            rd.setComposite(AlphaComposite
-                    .getInstance(AlphaComposite.SRC_OVER, (float) d));
+            rd.setComposite(FADES[(int) Math.round(Math.max(d, 0) * 255)]);
         }
 
-        if (!theme.isTransparent()) {
-            rd.setColor(theme.bgGrad()[0]);
-            rd.fillRoundRect(0, 0, w, h, 20, 20);
+        if (rasterCache) {
+            if (!still) {
+                rd.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            }
+            rd.drawImage(getRaster(rd.getDeviceConfiguration()), 0, 0, null);
+        } else {
+            paintBody(rd, still);
+        }
+
+        if (still) {
+            rd.translate(-x, -y);
+        } else {
+            rd.setTransform(trans);
+            rd.setComposite(AlphaComposite.SrcOver);
         }
+    }
+
+    /**
+     * Gets the image of this notification, painting it again only if
+     * something changed since the last time.
+     *
+     * @param gc The configuration of the device the image is meant for.
+     * @return The image of this notification.
+     */
+    private Image getRaster(GraphicsConfiguration gc) {
+        int count = getOccurrences();
+        if (raster != null && rasterConfig == gc && rasterTheme == theme && rasterTlts == tlts
+                && rasterMsgs == msgs && rasterIcon == icon && rasterType == type
+                && rasterOrientation == orientation && rasterHighl == highl && rasterCount == count
+                && raster.getWidth() == w && raster.getHeight() == h) {
+            rasterHits.incrementAndGet();
+            return raster;
+        }
+        rasterMisses.incrementAndGet();
+        Graphics2D g;
+        if (raster == null || rasterConfig != gc || raster.getWidth() != w || raster.getHeight() != h) {
+            if (raster != null) raster.flush();
+            raster = gc.createCompatibleImage(Math.max(w, 1), Math.max(h, 1), Transparency.TRANSLUCENT);
+            g = raster.createGraphics();
+        } else {
+            g = raster.createGraphics();
+            g.setComposite(AlphaComposite.Clear);
+            g.fillRect(0, 0, w, h);
+            g.setComposite(AlphaComposite.SrcOver);
+        }
+        paintBody(g, true);
+        g.dispose();
+        rasterConfig = gc;
+        rasterTheme = theme;
+        rasterTlts = tlts;
+        rasterMsgs = msgs;
+        rasterIcon = icon;
+        rasterType = type;
+        rasterOrientation = orientation;
+        rasterHighl = highl;
+        rasterCount = count;
+        return raster;
+    }
 
-        rd.setPaint(new GradientPaint(0, (title.isEmpty() ? 0 : 25), theme.getBgGrad()[0], 0, h, theme.getBgGrad()[highl + 1], false));
+    /**
+     * Paints the background, border, text and icon of this notification.
+     *
+     * @param rd   The <code>Graphics2D</code> object to use for painting,
+     *             already translated to the top-left corner.
+     * @param text <code>true</code> to paint the text too.
+     */
+    private void paintBody(Graphics2D rd, boolean text) {
+        rd.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        rd.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
-        if (hover && highl < 20) highl++;
-        if (!hover && highl > 0) highl--;
+        if (!theme.isTransparent()) {
+            rd.setColor(theme.getBgGrad()[0]);
+            rd.fillRoundRect(0, 0, w, h, 20, 20);
+        }
 
+        int start = title.isEmpty() ? 0 : 25;
+        Color end = theme.getBgGrad()[highl + 1];
+        if (gradient == null || gradientColor != end || gradientStart != start || gradientEnd != h
+                || gradient.getColor1() != theme.getBgGrad()[0]) {
+            gradient = new GradientPaint(0, start, theme.getBgGrad()[0], 0, h, end, false);
+            gradientColor = end;
+            gradientStart = start;
+            gradientEnd = h;
+        }
+        rd.setPaint(gradient);
         rd.fillRoundRect(0, 0, w, h, 20, 20);
         rd.setPaint(null);
         rd.setColor(theme.getBorderColor());
         rd.drawRoundRect(0, 0, w - 1, h - 1, 20, 20);
-        if (i == -1) {
-            int titleH = theme.getLineHeight(theme.getTitleFont());
-            int textH = theme.getLineHeight(theme.getContentFont());
+        if (text) {
             if (!title.isEmpty()) {
                 rd.setColor(theme.getTitleColor());
-                rd.setFont(theme.getTitleFont());
-                int tX = 5 + ((icon == null && type == NotifyType.NONE) ? 0 : (imgSize + 10));
-                for (int j = 0; j < tlts.length; j++) {
-                    if (orientation == NotifyDirection.RIGHT_TO_LEFT) {
-                        FontMetrics ftm = DesktopNotifyDriver.getFontMetrics(theme.getTitleFont());
-                        tX = w - 4 - ((icon == null && type == NotifyType.NONE) ? 0 : (imgSize + 10)) - ftm.stringWidth(tlts[j]);
-                    }
-                    rd.drawString(tlts[j], tX, 20 + theme.getBorderTop() + (titleH * j));
-                }
+                titleBlock().paint(rd);
             }
             if (!message.isEmpty()) {
                 rd.setColor(theme.getContentColor());
-                rd.setFont(theme.getContentFont());
-                int tX = 6 + ((icon == null && type == NotifyType.NONE) ? 0 : (imgSize + 10));
-                for (int j = 0; j < msgs.length; j++) {
-                    if (orientation == NotifyDirection.RIGHT_TO_LEFT) {
-                        FontMetrics ftm = DesktopNotifyDriver.getFontMetrics(theme.getContentFont());
-                        tX = w - 5 - ((icon == null && type == NotifyType.NONE) ? 0 : (imgSize + 10)) - ftm.stringWidth(msgs[j]);
-                    }
-                    rd.drawString(msgs[j], tX, 20 + theme.getBorderTop() + (titleH * tlts.length) + (textH * j));
+                messageBlock().paint(rd);
+            }
+            int count = getOccurrences();
+            if (count > 1) {
+                if (occurrenceLabelCount != count) {
+                    occurrenceLabel = "\u00d7" + count;
+                    occurrenceLabelCount = count;
+                    occurrenceLabelWidth = FontMetricsRegistry.getFontMetrics(theme.getContentFont()).stringWidth(occurrenceLabel);
                 }
+                rd.setColor(theme.getContentColor());
+                rd.setFont(theme.getContentFont());
+                int lX = orientation == NotifyDirection.RIGHT_TO_LEFT ? 8 : w - 8 - occurrenceLabelWidth;
+                rd.drawString(occurrenceLabel, lX, h - 8);
             }
         }
 //        if(expTime()==Long.MAX_VALUE){
@@ -219,8 +602,40 @@ public class Notify {
         if (icon != null) {
             rd.drawImage(icon, orientation == NotifyDirection.RIGHT_TO_LEFT ? (w - 7 - imgSize) : 6, (h / 2) - (imgSize / 2), imgSize, imgSize, null);
         }
-        rd.setTransform(trans);
-        rd.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER));
+    }
+
+    /**
+     * Enables or disables painting the notifications through a cached image.
+     * When enabled, each notification is painted once into an image that is
+     * reused on every frame until its contents, theme, size or highlight
+     * change.
+     *
+     * @param enabled <code>true</code> to use the cached images.
+     */
+    public static void setRasterCache(boolean enabled) {
+        rasterCache = enabled;
+    }
+
+    /**
+     * @return <code>true</code> if notifications are painted through cached
+     * images.
+     */
+    public static boolean isRasterCache() {
+        return rasterCache;
+    }
+
+    /**
+     * @return The amount of times a cached image could be reused.
+     */
+    public static long getRasterCacheHits() {
+        return rasterHits.get();
+    }
+
+    /**
+     * @return The amount of times a cached image had to be painted again.
+     */
+    public static long getRasterCacheMisses() {
+        return rasterMisses.get();
     }
 
 
@@ -230,46 +645,117 @@ public class Notify {
      */
     public void sortMessage() {
         if (!title.isEmpty()) {
-            tlts = splitLines(title, theme.getTitleFont());
+            titleLines = splitLines(title, theme.getTitleFont(), textRoom());
+            tlts = titleLines.lines;
         }
 
         if (!message.isEmpty()) {
-
-            msgs = splitLines(message, theme.getContentFont());
-            h = 15 + theme.getBorderTop() + (theme.getLineHeight(theme.getTitleFont()) * tlts.length) + (theme.getLineHeight(theme.getContentFont()) * msgs.length);
+            int room = textRoom();
+            LineCache.Lines lines = splitLines(message, theme.getContentFont(), room);
+            msgs = lines.lines;
+            h = 15 + theme.getBorderTop() + (theme.getLineHeight(theme.getTitleFont()) * tlts.length) + lines.height;
             imgSize = (h - 15);
-            msgs = splitLines(message, theme.getContentFont());
-            h = 15 + theme.getBorderTop() + (theme.getLineHeight(theme.getTitleFont()) * tlts.length) + (theme.getLineHeight(theme.getContentFont()) * msgs.length);
+            //The room for the text depends on the size of the icon, which
+            //depends on the height. Split again only if the room changed.
+            if (textRoom() != room) lines = splitLines(message, theme.getContentFont(), textRoom());
+            messageLines = lines;
+            msgs = lines.lines;
+            h = 15 + theme.getBorderTop() + (theme.getLineHeight(theme.getTitleFont()) * tlts.length) + lines.height;
+            messageBlock();
         }
+        if (!title.isEmpty()) titleBlock();
     }
 
-    private String[] splitLines(String in, Font font) {
-        String[] out;
-        ArrayList<String> list = new ArrayList<>();
-        String[] strs = in.split("\n");
-        StringBuilder builder = new StringBuilder();
-        FontMetrics ftm = DesktopNotifyDriver.getFontMetrics(font);
+    /**
+     * Sets the maximum amount of texts to remember the lines of. Notifications
+     * with the same text, font and size reuse the lines of the previous ones
+     * instead of splitting the text again.
+     *
+     * @param size The amount of texts, or 0 to disable the cache.
+     */
+    public static void setLineCacheSize(int size) {
+        lineCache.setLimit(size);
+    }
 
-        int ij = (h + 10);
-        int imgSize = (38 > ij ? 38 : ij);
+    public static int getLineCacheSize() {
+        return lineCache.getLimit();
+    }
 
-        for (String str : strs) {
-            String[] words = str.split(" ");
-            for (String word : words) {
-                if (ftm.stringWidth(builder.toString()) + ftm.stringWidth(word) < (w - 12 - ((icon == null && type == NotifyType.NONE) ? 0 : imgSize))) {
-                    builder.append(word).append(" ");
-                } else {
-                    list.add(builder.toString());
-                    builder = new StringBuilder().append(word).append(" ");
-                }
-            }
-            list.add(builder.toString());
-            builder.setLength(0);
+    /**
+     * @return The amount of times the lines of a text were reused.
+     */
+    public static long getLineCacheHits() {
+        return lineCache.getHits();
+    }
+
+    /**
+     * @return The amount of times a text had to be split in lines.
+     */
+    public static long getLineCacheMisses() {
+        return lineCache.getMisses();
+    }
+
+    /**
+     * @return The amount of texts dropped from the cache to make room for
+     * others.
+     */
+    public static long getLineCacheEvictions() {
+        return lineCache.getEvictions();
+    }
+
+    /**
+     * Gets the lines of the title ready to be painted, laying them out again
+     * if the font, the size or the text changed since the last time.
+     */
+    private TextBlock titleBlock() {
+        return titleBlock = textBlock(titleBlock, tlts, titleLines, theme.getTitleFont(), 5, 4,
+                20 + theme.getBorderTop());
+    }
+
+    /**
+     * Gets the lines of the message ready to be painted, laying them out
+     * again if the font, the size or the text changed since the last time.
+     */
+    private TextBlock messageBlock() {
+        return messageBlock = textBlock(messageBlock, msgs, messageLines, theme.getContentFont(), 6, 5,
+                20 + theme.getBorderTop() + theme.getLineHeight(theme.getTitleFont()) * tlts.length);
+    }
+
+    private TextBlock textBlock(TextBlock block, String[] lines, LineCache.Lines laidOut, Font font,
+                                int leftMargin, int rightMargin, int top) {
+        int iconSpace = (icon == null && type == NotifyType.NONE) ? 0 : (imgSize + 10);
+        boolean rtl = orientation == NotifyDirection.RIGHT_TO_LEFT;
+        int left = leftMargin + iconSpace;
+        int right = w - rightMargin - iconSpace;
+        int lineH = theme.getLineHeight(font);
+        if (block == null || !block.isFor(lines, font, rtl, left, right, top, lineH)) {
+            //The layouts are only good for the lines they were made with
+            TextLayout[] layouts = laidOut != null && laidOut.lines == lines ? laidOut.layouts : null;
+            block = new TextBlock(lines, layouts, font, rtl, left, right, top, lineH);
         }
+        return block;
+    }
+
+    /**
+     * @return The width left for the text next to the icon, which grows with
+     * the height.
+     */
+    private int textRoom() {
+        boolean hasIcon = !(icon == null && type == NotifyType.NONE);
+        int ij = (h + 10);
+        int imgSize = (38 > ij ? 38 : ij);
+        return w - 12 - (hasIcon ? imgSize : 0);
+    }
 
+    private LineCache.Lines splitLines(String in, Font font, int room) {
+        boolean hasIcon = !(icon == null && type == NotifyType.NONE);
+        LineCache.Key key = new LineCache.Key(in, font, room, orientation, hasIcon);
+        LineCache.Lines cached = lineCache.get(key);
+        if (cached != null) return cached;
 
-        out = new String[list.size()];
-        out = list.toArray(out);
-        return out;
+        LineCache.Lines lines = LayoutEngine.layout(in, font, room, orientation == NotifyDirection.RIGHT_TO_LEFT,
+                theme.getLineHeight(font));
+        lineCache.put(key, lines);
+        return lines;
     }
 }
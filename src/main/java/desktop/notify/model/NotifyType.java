@@ -3,12 +3,19 @@ package desktop.notify.model;
 import lombok.Getter;
 
 public enum NotifyType {
-    INFORMATION(1), WARNING(2), ERROR(3), HELP(4), TIP(5), INPUT_REQUEST(6), SUCCESS(7), FAIL(8), NONE(-1);
+    INFORMATION(1, 1), WARNING(2, 2), ERROR(3, 3), HELP(4, 0), TIP(5, 0), INPUT_REQUEST(6, 2), SUCCESS(7, 1), FAIL(8, 3), NONE(-1, 1);
 
     @Getter
     private int imgPos;
+    /**
+     * The default priority for notifications of this type. When there's no
+     * room on screen, notifications with higher priority are shown first.
+     */
+    @Getter
+    private int priority;
 
-    NotifyType(int imgPos) {
+    NotifyType(int imgPos, int priority) {
         this.imgPos = imgPos;
+        this.priority = priority;
     }
 }
@@ -0,0 +1,149 @@
+/*
+ * DS Desktop Notify
+ * A small utility to show small notifications in your Desktop anytime!
+ */
+package desktop.notify.model;
+
+import desktop.notify.FontMetricsRegistry;
+
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.font.GlyphVector;
+import java.awt.font.TextLayout;
+
+/**
+ * Some lines of text, with their glyphs and positions worked out in advance,
+ * so painting them takes no shaping nor measuring at all.
+ * <p>
+ * Plain lines are kept as a <code>GlyphVector</code>. The ones that need
+ * complex layout (right-to-left scripts, combining marks and the like) are
+ * kept as a <code>TextLayout</code> instead, which shapes and reorders them:
+ * the one made when the text was broken in lines, if there's one, so the
+ * direction of the whole paragraph is kept. Both are laid out with the
+ * {@link FontMetricsRegistry#DEFAULT_CONTEXT context} notifications are
+ * painted with.
+ *
+ * @author DragShot
+ */
+final class TextBlock {
+
+    private final String[] lines;
+    private final Font font;
+    private final boolean rtl;
+    private final int left, right, top, lineHeight;
+
+    private final GlyphVector[] glyphs;
+    private final TextLayout[] layouts;
+    private final float[] x;
+    private final float[] y;
+
+    /**
+     * Lays out some lines.
+     *
+     * @param lines      The lines.
+     * @param layouts    The layouts of the lines, as they were broken, or
+     *                   <code>null</code> to work them out here.
+     * @param font       The font to use.
+     * @param rtl        <code>true</code> to align the lines to the right.
+     * @param left       Where the lines start, when aligned to the left.
+     * @param right      Where the lines end, when aligned to the right.
+     * @param top        The baseline of the first line.
+     * @param lineHeight The distance between baselines.
+     */
+    TextBlock(String[] lines, TextLayout[] layouts, Font font, boolean rtl, int left, int right, int top,
+              int lineHeight) {
+        this.lines = lines;
+        this.font = font;
+        this.rtl = rtl;
+        this.left = left;
+        this.right = right;
+        this.top = top;
+        this.lineHeight = lineHeight;
+        glyphs = new GlyphVector[lines.length];
+        this.layouts = new TextLayout[lines.length];
+        x = new float[lines.length];
+        y = new float[lines.length];
+        FontMetricsRegistry.Metrics ftm = FontMetricsRegistry.get(font);
+        for (int j = 0; j < lines.length; j++) {
+            String line = lines[j];
+            if (layouts != null && layouts[j] != null) {
+                this.layouts[j] = layouts[j];
+            } else if (requiresLayout(line)) {
+                this.layouts[j] = new TextLayout(line, font, FontMetricsRegistry.DEFAULT_CONTEXT);
+            } else {
+                glyphs[j] = font.createGlyphVector(FontMetricsRegistry.DEFAULT_CONTEXT, line);
+            }
+            int width = glyphs[j] != null ? ftm.stringWidth(line) : Math.round(this.layouts[j].getAdvance());
+            x[j] = rtl ? right - width : left;
+            y[j] = top + lineHeight * j;
+        }
+    }
+
+    /**
+     * Tells if a line may need more than one glyph per character, in order,
+     * to be shown right. Errs on the safe side: only the ranges known to be
+     * simple (Latin, Greek, Cyrillic, Armenian, common symbols, CJK and
+     * Hangul) are let through.
+     */
+    static boolean requiresLayout(CharSequence text) {
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = text.charAt(i);
+            if (c < 0x0300 || (c >= 0x0370 && c < 0x0590) || isPlainSymbol(c)) continue;
+            if ((c >= 0x2E80 && c < 0xA000) || (c >= 0xAC00 && c < 0xD7A4) || (c >= 0xF900 && c < 0xFB00)) continue;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Tells if a character is one of the punctuation marks and symbols used
+     * along with any script (dashes, smart quotes, the ellipsis, currency
+     * signs, the trade mark sign and the like), which take a glyph of their
+     * own and no reordering. The invisible format characters among them
+     * (joiners and directional marks) aren't.
+     */
+    static boolean isPlainSymbol(char c) {
+        //General Punctuation, but the zero width and bidi format characters
+        if (c >= 0x2000 && c < 0x2070) {
+            return c < 0x200B || (c >= 0x2010 && c < 0x2028) || (c >= 0x202F && c < 0x2060);
+        }
+        //Currency Symbols and Letterlike Symbols
+        return (c >= 0x20A0 && c < 0x20D0) || (c >= 0x2100 && c < 0x2150);
+    }
+
+    /**
+     * Tells if these lines were laid out with the given parameters, so they
+     * can still be used.
+     */
+    boolean isFor(String[] lines, Font font, boolean rtl, int left, int right, int top, int lineHeight) {
+        return this.lines == lines && this.font.equals(font) && this.rtl == rtl && this.left == left
+                && this.right == right && this.top == top && this.lineHeight == lineHeight;
+    }
+
+    /**
+     * Paints the lines. The color is taken from the <code>Graphics2D</code>.
+     *
+     * @param rd The <code>Graphics2D</code> object to use for painting.
+     */
+    void paint(Graphics2D rd) {
+        for (int j = 0; j < x.length; j++) {
+            if (glyphs[j] != null) {
+                rd.drawGlyphVector(glyphs[j], x[j], y[j]);
+            } else if (layouts[j] != null) {
+                layouts[j].draw(rd, x[j], y[j]);
+            }
+        }
+    }
+
+    int size() {
+        return x.length;
+    }
+
+    float getX(int line) {
+        return x[line];
+    }
+
+    float getY(int line) {
+        return y[line];
+    }
+}
@@ -92,10 +92,7 @@ public class NotifyServer extends NotifyService {
             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
             PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), true);
             String req = null, resp = null;
-            String title = null, message = null, themeName = null;
-            NotifyType type = null;
-            NotifyDirection align = null;
-            Long timeout = null;
+            Request request = new Request();
 
             while (lineUp) {
                 req = in.readLine();
@@ -103,49 +100,65 @@ public class NotifyServer extends NotifyService {
                 if (req == null) {
                     lineUp = false;
                     resp = null;
-                } else if (req.startsWith("DESCRIBE")) {
-                    resp = "DSDN 090";
-                } else if (req.startsWith("BUILD")) {
-                    resp = "READY";
-                } else if (req.startsWith("--title")) {
-                    req = readValue("--title", req);
-                    title = req;
-                    resp = "OK";
-                } else if (req.startsWith("--message")) {
-                    req = readValue("--message", req);
-                    message = req;
-                    resp = "OK";
-                } else if (req.startsWith("--type")) {
-                    req = readValue("--type", req);
-                    type = NotifyType.valueOf(req);
-                    resp = "OK";
-                } else if (req.startsWith("--align")) {
-                    req = readValue("--align", req);
-                    align = NotifyDirection.valueOf(req);
-                    resp = "OK";
-                } else if (req.startsWith("--timeout")) {
-                    req = readValue("--timeout", req);
-                    timeout = Long.parseLong(req);
-                    resp = "OK";
-                } else if (req.startsWith("--theme")) {
-                    req = readValue("--theme", req);
-                    themeName = req;
-                    resp = "OK";
                 } else if (req.startsWith("POST")) {
-                    postNotification(title, message, type, align, timeout, themeName);
+                    postNotification(request.title, request.message, request.type, request.align,
+                            request.timeout, request.themeName);
                     resp = "DONE";
                     lineUp = false;
                 } else if (req.startsWith("SHUTDOWN")) {
                     new Thread(this::stop).start();
                     resp = "OK";
                     lineUp = false;
+                } else {
+                    String r = request.read(req);
+                    if (r != null) resp = r;
                 }
             }
         });
     }
 
-    private String readValue(String head, String line) {
-        return line.substring(head.length()).replace("\\r", "\r").replace("\\n", "\n").trim();
+    /**
+     * The details of a notification request, as read so far from a session.
+     */
+    static final class Request {
+        String title, message, themeName;
+        NotifyType type;
+        NotifyDirection align;
+        Long timeout;
+
+        /**
+         * Reads a line of the request that isn't a command.
+         *
+         * @param req The line.
+         * @return The response for that line, or {@code null} if the line
+         * isn't understood.
+         */
+        String read(String req) {
+            if (req.startsWith("DESCRIBE")) {
+                return "DSDN 090";
+            } else if (req.startsWith("BUILD")) {
+                return "READY";
+            } else if (req.startsWith("--title")) {
+                title = readValue("--title", req);
+            } else if (req.startsWith("--message")) {
+                message = readValue("--message", req);
+            } else if (req.startsWith("--type")) {
+                type = NotifyType.valueOf(readValue("--type", req));
+            } else if (req.startsWith("--align")) {
+                align = NotifyDirection.valueOf(readValue("--align", req));
+            } else if (req.startsWith("--timeout")) {
+                timeout = Long.parseLong(readValue("--timeout", req));
+            } else if (req.startsWith("--theme")) {
+                themeName = readValue("--theme", req);
+            } else {
+                return null;
+            }
+            return "OK";
+        }
+
+        private static String readValue(String head, String line) {
+            return line.substring(head.length()).replace("\\r", "\r").replace("\\n", "\n").trim();
+        }
     }
 
     @Override
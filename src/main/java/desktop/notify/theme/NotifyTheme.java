@@ -5,7 +5,7 @@
 package desktop.notify.theme;
 
 import desktop.notify.DesktopNotify;
-import desktop.notify.DesktopNotifyDriver;
+import desktop.notify.FontMetricsRegistry;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -87,6 +87,11 @@ public class NotifyTheme {
      */
     @Getter
     protected Color[] bgGrad;
+    /**
+     * The regular background and highlighted gradient colors, kept together
+     * for {@link #bgGrad()}.
+     */
+    private Color[] bgPair;
     /**
      * The set of icons to use for each notification type
      */
@@ -102,10 +107,16 @@ public class NotifyTheme {
 
     /**
      * @return The background colors to use in the theme (regular background and
-     * highlighted gradient), stored in an array.
+     * highlighted gradient), stored in an array. The same array is returned on
+     * every call, it must not be modified.
      */
     public Color[] bgGrad() {
-        return new Color[]{bgGrad[0], bgGrad[21]};
+        Color[] pair = bgPair;
+        if (pair == null || pair[0] != bgGrad[0] || pair[1] != bgGrad[21]) {
+            pair = new Color[]{bgGrad[0], bgGrad[21]};
+            bgPair = pair;
+        }
+        return pair;
     }
 
     /**
@@ -143,8 +154,7 @@ public class NotifyTheme {
     }
 
     public int getLineHeight(Font font) {
-        FontMetrics ftm = DesktopNotifyDriver.getFontMetrics(font);
-        return ftm.getHeight() - ftm.getLeading();
+        return FontMetricsRegistry.getLineHeight(font);
     }
 
     /**
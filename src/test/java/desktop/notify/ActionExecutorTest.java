@@ -0,0 +1,113 @@
+package desktop.notify;
+
+import org.junit.Test;
+
+import java.awt.EventQueue;
+import java.awt.event.ActionEvent;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ActionExecutorTest {
+
+    private final ActionExecutor executor = new ActionExecutor(false);
+    private final ActionEvent event = new ActionEvent(this, ActionEvent.ACTION_PERFORMED, "fireAction");
+
+    private static void await(CountDownLatch latch) throws InterruptedException {
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long end = System.currentTimeMillis() + 5000L;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < end);
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    public void runsActionsAwayFromTheEdt() throws InterruptedException {
+        AtomicBoolean onEdt = new AtomicBoolean(true);
+        CountDownLatch done = new CountDownLatch(1);
+        assertTrue(executor.execute(e -> {
+            onEdt.set(EventQueue.isDispatchThread());
+            done.countDown();
+        }, event, 0L, false));
+        await(done);
+        assertFalse(onEdt.get());
+        waitFor(() -> executor.getExecutedCount() == 1L && executor.getPendingCount() == 0);
+    }
+
+    @Test
+    public void runsOnTheEdtWhenAsked() throws InterruptedException {
+        AtomicBoolean onEdt = new AtomicBoolean(false);
+        CountDownLatch done = new CountDownLatch(1);
+        executor.execute(e -> {
+            onEdt.set(EventQueue.isDispatchThread());
+            done.countDown();
+        }, event, 0L, true);
+        await(done);
+        assertTrue(onEdt.get());
+    }
+
+    @Test
+    public void rejectsPastTheQueueLimit() throws InterruptedException {
+        executor.setQueueLimit(2);
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 2; i++) {
+            assertTrue(executor.execute(e -> {
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                }
+            }, event, 0L, false));
+        }
+        assertFalse(executor.execute(e -> {
+        }, event, 0L, false));
+        assertEquals(1L, executor.getRejectedCount());
+        release.countDown();
+        waitFor(() -> executor.getPendingCount() == 0);
+        assertTrue(executor.execute(e -> {
+        }, event, 0L, false));
+    }
+
+    @Test
+    public void interruptsSlowActionsAndCountsFailures() throws InterruptedException {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        executor.execute(e -> {
+            try {
+                Thread.sleep(10000L);
+            } catch (InterruptedException ex) {
+                interrupted.countDown();
+            }
+        }, event, 50L, false);
+        await(interrupted);
+        assertEquals(1L, executor.getTimedOutCount());
+
+        Thread.UncaughtExceptionHandler handler = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler((t, ex) -> {
+        });
+        try {
+            executor.execute(e -> {
+                throw new IllegalStateException("Expected");
+            }, event, 0L, false);
+            waitFor(() -> executor.getFailedCount() == 1L);
+        } finally {
+            Thread.setDefaultUncaughtExceptionHandler(handler);
+        }
+        waitFor(() -> executor.getPendingCount() == 0);
+        //The pool threads are left clean for the next ones
+        CountDownLatch done = new CountDownLatch(2);
+        for (int i = 0; i < 2; i++) {
+            executor.execute(e -> {
+                if (!Thread.currentThread().isInterrupted()) done.countDown();
+            }, event, 0L, false);
+        }
+        await(done);
+    }
+}
@@ -0,0 +1,97 @@
+package desktop.notify;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BackgroundCaptureTest {
+
+    private final List<Rectangle> grabbed = new ArrayList<>();
+    private final long memoryCap = BackgroundCapture.getMemoryCap();
+
+    private BufferedImage grab(Rectangle area) {
+        grabbed.add(area);
+        return new BufferedImage(area.width, area.height, BufferedImage.TYPE_INT_RGB);
+    }
+
+    @After
+    public void restore() {
+        BackgroundCapture.setMemoryCap(memoryCap);
+    }
+
+    @Test
+    public void capturesOnlyTheAreaCoveredForTheFirstTime() {
+        BackgroundCapture capture = new BackgroundCapture(this::grab, true);
+        capture.reset(new Rectangle(100, 0, 300, 1000));
+        assertTrue(capture.cover(1000 - 150));
+        //Rows 13 (832-895), 14 (896-959) and 15 (960-999)
+        assertEquals(3, grabbed.size());
+        assertEquals(new Rectangle(100, 960, 300, 40), grabbed.get(2));
+
+        assertTrue(capture.cover(1000 - 100));
+        assertEquals(3, grabbed.size());
+        assertTrue(capture.cover(1000 - 200));
+        assertEquals(4, grabbed.size());
+        capture.stop();
+    }
+
+    @Test
+    public void refreshesAboveTheStackWithinTheMemoryCap() {
+        BackgroundCapture.setMemoryCap(6L * 4 * 300 * BackgroundCapture.TILE);
+        BackgroundCapture capture = new BackgroundCapture(this::grab, true);
+        capture.reset(new Rectangle(0, 0, 300, 640));
+        capture.cover(640 - 128);
+        assertEquals(2, grabbed.size());
+        long held = BackgroundCapture.getHeldBytes();
+
+        capture.refresh();
+        //Two rows covered plus four prefetched right above them
+        assertEquals(6, grabbed.size());
+        assertEquals(new Rectangle(0, 448, 300, 64), grabbed.get(2));
+        assertEquals(new Rectangle(0, 256, 300, 64), grabbed.get(5));
+        assertEquals(held + 4L * 4 * 300 * 64, BackgroundCapture.getHeldBytes());
+
+        capture.stop();
+        assertEquals(held - 2L * 4 * 300 * 64, BackgroundCapture.getHeldBytes());
+    }
+
+    @Test
+    public void unshapedWindowIsCapturedAndPaintedWhole() {
+        //Less than a single tile
+        BackgroundCapture.setMemoryCap(1024L);
+        BackgroundCapture capture = new BackgroundCapture(area -> {
+            BufferedImage image = grab(area);
+            Graphics2D g = image.createGraphics();
+            g.setColor(Color.RED);
+            g.fillRect(0, 0, area.width, area.height);
+            g.dispose();
+            return image;
+        }, false);
+        capture.reset(new Rectangle(0, 0, 300, 1000));
+        capture.prefetch();
+        //Every row, the memory cap notwithstanding
+        assertEquals(16, grabbed.size());
+        assertEquals(new Rectangle(0, 0, 300, 64), grabbed.get(15));
+
+        //Nothing can be captured while the window is up
+        capture.cover(1000 - 150);
+        assertEquals(16, grabbed.size());
+        BufferedImage window = new BufferedImage(300, 1000, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = window.createGraphics();
+        capture.paint(g);
+        g.dispose();
+        //Above the stack too, not just behind it
+        assertEquals(Color.RED.getRGB(), window.getRGB(150, 10));
+        assertEquals(Color.RED.getRGB(), window.getRGB(150, 999));
+        capture.stop();
+    }
+}
@@ -0,0 +1,77 @@
+package desktop.notify;
+
+import desktop.notify.model.Notify;
+import desktop.notify.model.NotifyDirection;
+import desktop.notify.model.NotifyType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares posting 1,000 notifications one by one against posting them as a
+ * batch: admitting them, laying out their text, adding them to the queue and
+ * waking the driver. The window itself is left out, so this runs headless.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class BatchPostBenchmark {
+
+    private static final int BATCH = 1000;
+
+    private final RepaintScheduler scheduler = new RepaintScheduler();
+    private final DriverMetrics metrics = new DriverMetrics(() -> 0, () -> 0);
+    private NotifyQueue queue;
+    private List<Notify> batch;
+
+    @Setup(Level.Invocation)
+    public void setup() {
+        queue = new NotifyQueue();
+        batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            batch.add(new Notify("Notification " + i, TextLayoutBenchmark.LONG, NotifyType.INFORMATION,
+                    NotifyDirection.LEFT_TO_RIGHT, null));
+        }
+    }
+
+    @Benchmark
+    public NotifyQueue oneByOne() {
+        for (Notify window : batch) {
+            if (!queue.admit(window)) continue;
+            window.setW(DesktopNotifyDriver.WIDTH);
+            long start = System.nanoTime();
+            window.sortMessage();
+            metrics.layout(System.nanoTime() - start);
+            queue.post(window);
+            scheduler.requestFrame();
+        }
+        return queue;
+    }
+
+    @Benchmark
+    public NotifyQueue batch() {
+        List<Notify> admitted = new ArrayList<>(batch.size());
+        for (Notify window : batch) {
+            if (queue.admit(window)) admitted.add(window);
+        }
+        BatchLayout.layout(admitted, DesktopNotifyDriver.WIDTH, metrics);
+        queue.postAll(admitted);
+        scheduler.requestFrame();
+        return queue;
+    }
+}
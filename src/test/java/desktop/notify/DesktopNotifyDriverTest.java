@@ -0,0 +1,25 @@
+package desktop.notify;
+
+import desktop.notify.model.Notify;
+import desktop.notify.model.NotifyDirection;
+import desktop.notify.model.NotifyType;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.awt.GraphicsEnvironment;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertSame;
+
+public class DesktopNotifyDriverTest {
+
+    @Test
+    public void showsHeadlessOnAnOffscreenSurface() throws Exception {
+        Assume.assumeTrue(GraphicsEnvironment.isHeadless());
+        Notify n = new Notify("Title", "Shown with no display", NotifyType.INFORMATION,
+                NotifyDirection.LEFT_TO_RIGHT, null);
+        n.setTimeout(100);
+        //Completed once painted by the driver thread
+        assertSame(n, n.showAsync().get(10, TimeUnit.SECONDS));
+    }
+}
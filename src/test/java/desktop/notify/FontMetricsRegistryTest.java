@@ -0,0 +1,64 @@
+package desktop.notify;
+
+import org.junit.Test;
+
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.font.FontRenderContext;
+import java.awt.geom.AffineTransform;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FontMetricsRegistryTest {
+
+    private static final Font FONT = new Font("Dialog", Font.PLAIN, 12);
+
+    @Test
+    public void measuresEachFontOnce() throws Exception {
+        FontMetricsRegistry.Metrics m = FontMetricsRegistry.get(FONT);
+        assertSame(m, FontMetricsRegistry.get(new Font("Dialog", Font.PLAIN, 12)));
+        assertNotSame(m, FontMetricsRegistry.get(FONT.deriveFont(14f)));
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Callable<FontMetricsRegistry.Metrics>> tasks = new ArrayList<>();
+            Font bold = FONT.deriveFont(Font.BOLD);
+            for (int i = 0; i < 16; i++) tasks.add(() -> FontMetricsRegistry.get(bold));
+            FontMetricsRegistry.Metrics first = null;
+            for (Future<FontMetricsRegistry.Metrics> f : pool.invokeAll(tasks)) {
+                if (first == null) first = f.get();
+                assertSame(first, f.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void keepsContextsApart() {
+        FontRenderContext scaled = new FontRenderContext(AffineTransform.getScaleInstance(2, 2), true, false);
+        assertNotSame(FontMetricsRegistry.get(FONT), FontMetricsRegistry.get(FONT, scaled));
+        assertSame(FontMetricsRegistry.get(FONT), FontMetricsRegistry.get(FONT, FontMetricsRegistry.DEFAULT_CONTEXT));
+    }
+
+    @Test
+    public void precomputesWhatLayoutNeeds() {
+        FontMetricsRegistry.Metrics m = FontMetricsRegistry.get(FONT);
+        FontMetrics ftm = m.getFontMetrics();
+        assertEquals(ftm.getHeight() - ftm.getLeading(), m.getLineHeight());
+        assertEquals(ftm.getLeading(), m.getLeading());
+        assertTrue(m.getLineHeight() > 0);
+        String text = "Plain ASCII, Latin-1 éè and beyond Ж中";
+        assertEquals(ftm.stringWidth(text), m.charsWidth(text, 0, text.length()));
+        assertSame(ftm, DesktopNotifyDriver.getFontMetrics(FONT));
+    }
+}
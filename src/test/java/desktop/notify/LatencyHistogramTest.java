@@ -0,0 +1,65 @@
+package desktop.notify;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketsCoverTheirValues() {
+        for (long v : new long[]{0L, 1L, 15L, 16L, 17L, 31L, 32L, 1000L, 123456789L, Long.MAX_VALUE}) {
+            int b = LatencyHistogram.bucket(v);
+            assertTrue(v <= LatencyHistogram.upperBound(b));
+            if (b > 0) assertTrue(v > LatencyHistogram.upperBound(b - 1));
+        }
+    }
+
+    @Test
+    public void percentilesStayWithinBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(42L);
+        long[] values = new long[10000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) (Math.exp(random.nextGaussian() * 2.0 + 10.0));
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        for (double p : new double[]{50.0, 90.0, 99.0}) {
+            long exact = values[(int) Math.ceil(values.length * p / 100.0) - 1];
+            long reported = histogram.percentile(p);
+            assertTrue(p + "th: " + reported + " vs " + exact,
+                    reported >= exact && reported <= exact + exact / 8 + 1);
+        }
+        assertEquals(values[values.length - 1], histogram.getMax());
+        assertEquals(values.length, histogram.getCount());
+
+        histogram.reset();
+        assertEquals(0L, histogram.percentile(99.0));
+        assertEquals(0L, histogram.getCount());
+    }
+
+    @Test
+    public void recordsFromManyThreads() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 1; i <= 10000; i++) {
+                    histogram.record(i);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(40000L, histogram.getCount());
+        assertEquals(4L * 10000L * 10001L / 2L, histogram.getTotal());
+        assertEquals(10000L, histogram.getMax());
+    }
+}
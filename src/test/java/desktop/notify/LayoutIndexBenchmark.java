@@ -0,0 +1,88 @@
+package desktop.notify;
+
+import desktop.notify.model.Notify;
+import desktop.notify.model.NotifyDirection;
+import desktop.notify.model.NotifyType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares hit-testing a stack of 1,000 notifications through the layout index
+ * against walking it from the bottom, and measures the per-frame cost of
+ * picking up the queue when 1,000 notifications are waiting for room.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class LayoutIndexBenchmark {
+
+    private static final int ENTRIES = 1000;
+
+    private int[] heights;
+    private LayoutIndex layout;
+    private NotifyQueue queue;
+    private int d;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        heights = new int[ENTRIES];
+        layout = new LayoutIndex();
+        for (int i = 0; i < ENTRIES; i++) {
+            heights[i] = 40 + random.nextInt(80);
+            layout.add(heights[i]);
+        }
+        queue = new NotifyQueue();
+        NotifyType[] types = NotifyType.values();
+        for (int i = 0; i < ENTRIES; i++) {
+            Notify n = new Notify("Title", "Message " + i, types[i % types.length], NotifyDirection.LEFT_TO_RIGHT, null);
+            n.setH(heights[i]);
+            queue.admit(n);
+            queue.post(n);
+        }
+    }
+
+    private int next() {
+        d += 37;
+        if (d >= layout.getTotal()) d -= layout.getTotal();
+        return d;
+    }
+
+    @Benchmark
+    public int walk() {
+        return linearFind(heights, next());
+    }
+
+    @Benchmark
+    public int index() {
+        return layout.find(next());
+    }
+
+    @Benchmark
+    public int drain() {
+        return queue.drain(1000).size() + queue.getLayout().find(next() % 1000);
+    }
+
+    private static int linearFind(int[] heights, int d) {
+        int start = 0;
+        for (int i = 0; i < heights.length; i++) {
+            if (start < d && d < start + heights[i]) return i;
+            start += heights[i] + LayoutIndex.GAP;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,66 @@
+package desktop.notify;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class LayoutIndexTest {
+
+    @Test
+    public void findsNotificationAtHeight() {
+        LayoutIndex layout = new LayoutIndex();
+        layout.add(50);
+        layout.add(80);
+        layout.add(30);
+        //[0,50) gap [55,135) gap [140,170)
+        assertEquals(-1, layout.find(0));
+        assertEquals(0, layout.find(1));
+        assertEquals(0, layout.find(49));
+        assertEquals(-1, layout.find(52));
+        assertEquals(1, layout.find(100));
+        assertEquals(2, layout.find(169));
+        assertEquals(-1, layout.find(500));
+        assertEquals(175, layout.getTotal());
+        assertEquals(2, layout.fitting(170));
+        assertEquals(3, layout.fitting(171));
+    }
+
+    @Test
+    public void matchesLinearWalkAfterUpdates() {
+        LayoutIndex layout = new LayoutIndex();
+        List<Integer> heights = new ArrayList<>();
+        Random random = new Random(7);
+        for (int step = 0; step < 2000; step++) {
+            int op = random.nextInt(3);
+            if (op == 0 || heights.isEmpty()) {
+                int h = 20 + random.nextInt(100);
+                heights.add(h);
+                layout.add(h);
+            } else if (op == 1) {
+                int i = random.nextInt(heights.size());
+                heights.remove(i);
+                layout.remove(i);
+            } else {
+                int i = random.nextInt(heights.size());
+                int h = 20 + random.nextInt(100);
+                heights.set(i, h);
+                layout.resize(i, h);
+            }
+            int d = random.nextInt(layout.getTotal() + 10);
+            assertEquals(linearFind(heights, d), layout.find(d));
+        }
+    }
+
+    private static int linearFind(List<Integer> heights, int d) {
+        int start = 0;
+        for (int i = 0; i < heights.size(); i++) {
+            if (start < d && d < start + heights.get(i)) return i;
+            start += heights.get(i) + LayoutIndex.GAP;
+        }
+        return -1;
+    }
+}
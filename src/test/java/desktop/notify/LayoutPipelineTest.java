@@ -0,0 +1,106 @@
+package desktop.notify;
+
+import desktop.notify.model.Notify;
+import desktop.notify.model.NotifyDirection;
+import desktop.notify.model.NotifyType;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class LayoutPipelineTest {
+
+    private final DriverMetrics metrics = new DriverMetrics(() -> 0, () -> 0);
+
+    @Test
+    public void handsOverInTheOrderSubmitted() throws InterruptedException {
+        LayoutPipeline pipeline = new LayoutPipeline(4, metrics);
+        List<Notify> posted = new ArrayList<>();
+        List<Notify> handedOver = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(200);
+        StringBuilder longText = new StringBuilder();
+        for (int i = 0; i < 400; i++) longText.append("word").append(i).append(' ');
+        for (int i = 0; i < 200; i++) {
+            //Long ones take a while, short ones overtake them
+            String message = (i % 3 == 0 ? longText.toString() : "short ") + i;
+            Notify n = new Notify("Title " + i, message, NotifyType.INFORMATION, NotifyDirection.LEFT_TO_RIGHT, null);
+            posted.add(n);
+            pipeline.submit(n, 300, () -> {
+                assertTrue(n.getH() > 0);
+                handedOver.add(n);
+                done.countDown();
+            }, ex -> fail(ex.toString()));
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        assertEquals(posted, handedOver);
+        assertEquals(0, pipeline.getPendingCount());
+        assertTrue(metrics.getLayoutTimeTotal() > 0L);
+    }
+
+    @Test
+    public void batchesTakeTheirTurnToo() throws InterruptedException {
+        LayoutPipeline pipeline = new LayoutPipeline(2, metrics);
+        List<String> handedOver = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(3);
+        StringBuilder longText = new StringBuilder();
+        for (int i = 0; i < 400; i++) longText.append("word").append(i).append(' ');
+        List<Notify> batch = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            batch.add(new Notify("Title", longText.toString(), NotifyType.INFORMATION, NotifyDirection.LEFT_TO_RIGHT, null));
+        }
+        pipeline.submit(new Notify("Title", "before", NotifyType.INFORMATION, NotifyDirection.LEFT_TO_RIGHT, null),
+                300, () -> {
+                    handedOver.add("before");
+                    done.countDown();
+                }, ex -> fail(ex.toString()));
+        pipeline.submitAll(batch, 300, () -> {
+            for (Notify n : batch) assertTrue(n.getH() > 0);
+            handedOver.add("batch");
+            done.countDown();
+        }, ex -> fail(ex.toString()));
+        pipeline.submit(new Notify("Title", "after", NotifyType.INFORMATION, NotifyDirection.LEFT_TO_RIGHT, null),
+                300, () -> {
+                    handedOver.add("after");
+                    done.countDown();
+                }, ex -> fail(ex.toString()));
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("before", "batch", "after"), handedOver);
+    }
+
+    @Test
+    public void keepsGoingWhenALayoutFails() throws InterruptedException {
+        LayoutPipeline pipeline = new LayoutPipeline(2, metrics);
+        List<Integer> handedOver = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(3);
+        Notify broken = new Notify("Title", "Message", NotifyType.INFORMATION, NotifyDirection.LEFT_TO_RIGHT, null) {
+            @Override
+            public void sortMessage() {
+                throw new IllegalStateException("Broken on purpose");
+            }
+        };
+        for (int i = 0; i < 3; i++) {
+            int k = i;
+            Notify n = i == 1 ? broken
+                    : new Notify("Title", "Message", NotifyType.INFORMATION, NotifyDirection.LEFT_TO_RIGHT, null);
+            pipeline.submit(n, 300, () -> {
+                handedOver.add(k);
+                done.countDown();
+            }, ex -> {
+                assertTrue(ex instanceof IllegalStateException);
+                handedOver.add(-k);
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        //The broken one isn't handed over, but it doesn't hold the others back
+        assertEquals(Arrays.asList(0, -1, 2), handedOver);
+    }
+}
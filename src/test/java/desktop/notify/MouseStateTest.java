@@ -0,0 +1,55 @@
+package desktop.notify;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MouseStateTest {
+
+    @Test
+    public void keepsPositionAndClicksTogether() {
+        MouseState mouse = new MouseState();
+        assertEquals(-1, mouse.getY());
+        assertFalse(mouse.takeClick());
+
+        mouse.move(0);
+        assertEquals(0, mouse.getY());
+        mouse.click(250);
+        mouse.click(260);
+        assertEquals(260, mouse.getY());
+        assertTrue(mouse.takeClick());
+        //Both clicks are taken at once, the position stays
+        assertFalse(mouse.takeClick());
+        assertEquals(260, mouse.getY());
+
+        mouse.click();
+        mouse.move(-1);
+        assertEquals(-1, mouse.getY());
+        assertTrue(mouse.takeClick());
+    }
+
+    @Test
+    public void staysConsistentAcrossThreads() throws InterruptedException {
+        MouseState mouse = new MouseState();
+        int clicks = 100000;
+        Thread events = new Thread(() -> {
+            for (int i = 0; i < clicks; i++) {
+                mouse.move(i & 1023);
+                mouse.click(i & 1023);
+            }
+        });
+        events.start();
+        int taken = 0;
+        while (events.isAlive()) {
+            if (mouse.takeClick()) taken++;
+            int y = mouse.getY();
+            assertTrue(y >= 0 && y < 1024 || y == -1);
+        }
+        events.join();
+        if (mouse.takeClick()) taken++;
+        assertTrue(taken > 0);
+        assertFalse(mouse.takeClick());
+    }
+}
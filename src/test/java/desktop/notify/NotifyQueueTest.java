@@ -0,0 +1,271 @@
+package desktop.notify;
+
+import balbucio.throwable.Throwable;
+import desktop.notify.model.Notify;
+import desktop.notify.model.NotifyDirection;
+import desktop.notify.model.NotifyType;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class NotifyQueueTest {
+
+    private static final int PRODUCERS = 32;
+    private static final int POSTS = 5000;
+
+    @Test
+    public void concurrentPostsAreNeverLost() throws Exception {
+        final NotifyQueue queue = new NotifyQueue();
+        final Notify[][] posted = new Notify[PRODUCERS][POSTS];
+        for (int i = 0; i < PRODUCERS; i++) {
+            for (int j = 0; j < POSTS; j++) {
+                posted[i][j] = new Notify("T" + i, "M" + j, NotifyType.NONE, NotifyDirection.LEFT_TO_RIGHT, null);
+            }
+        }
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(PRODUCERS);
+        for (int i = 0; i < PRODUCERS; i++) {
+            final Notify[] mine = posted[i];
+            new Thread(() -> {
+                try {
+                    start.await();
+                    for (Notify n : mine) queue.post(n);
+                } catch (InterruptedException ignored) {
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+
+        //Plays the part of the painting thread: drains and removes the oldest
+        //half of the list while the producers are still posting.
+        int received = 0;
+        start.countDown();
+        boolean producing = true;
+        while (producing) {
+            producing = done.getCount() > 0;
+            List<Notify> windows = queue.drain(Integer.MAX_VALUE);
+            int half = windows.size() / 2;
+            for (int i = half - 1; i >= 0; i--) queue.remove(i);
+            received += half;
+        }
+        List<Notify> windows = queue.drain(Integer.MAX_VALUE);
+        received += windows.size();
+        while (!windows.isEmpty()) queue.remove(windows.size() - 1);
+
+        assertEquals(PRODUCERS * POSTS, received);
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void dropNewestRejectsBeyondCapacity() {
+        NotifyQueue queue = new NotifyQueue();
+        queue.setCapacity(2);
+        for (int i = 0; i < 5; i++) {
+            Notify n = notify("M" + i, 1000);
+            if (queue.admit(n)) queue.post(n);
+        }
+        assertEquals(2, queue.drain(Integer.MAX_VALUE).size());
+        assertEquals(3, queue.getRejectedCount());
+    }
+
+    @Test
+    public void dropOldestKeepsStickyNotifications() {
+        NotifyQueue queue = new NotifyQueue();
+        queue.setCapacity(2);
+        queue.setPolicy(OverflowPolicy.DROP_OLDEST_NON_STICKY);
+        Notify sticky = notify("sticky", 0);
+        Notify old = notify("old", 1000);
+        Notify young = notify("young", 1000);
+        for (Notify n : new Notify[]{sticky, old, young}) {
+            assertTrue(queue.admit(n));
+            queue.post(n);
+        }
+        List<Notify> windows = queue.drain(Integer.MAX_VALUE);
+        assertEquals(2, windows.size());
+        assertTrue(windows.contains(sticky));
+        assertTrue(windows.contains(young));
+        assertEquals(1, queue.getEvictedCount());
+        assertEquals(2, queue.size());
+    }
+
+    @Test
+    public void blockWaitsForRoom() throws Exception {
+        final NotifyQueue queue = new NotifyQueue();
+        queue.setCapacity(1);
+        queue.setPolicy(OverflowPolicy.BLOCK);
+        queue.setTimeout(50);
+        Notify first = notify("first", 1000);
+        assertTrue(queue.admit(first));
+        queue.post(first);
+        assertFalse(queue.admit(notify("late", 1000)));
+        assertEquals(1, queue.getRejectedCount());
+
+        queue.setTimeout(10000);
+        queue.drain(Integer.MAX_VALUE);
+        new Thread(() -> {
+            Throwable.threadSleep(50);
+            queue.remove(0);
+        }).start();
+        assertTrue(queue.admit(notify("patient", 1000)));
+    }
+
+    @Test
+    public void coalesceMergesDuplicates() {
+        NotifyQueue queue = new NotifyQueue();
+        queue.setCapacity(1);
+        queue.setPolicy(OverflowPolicy.COALESCE);
+        Notify first = notify("same", 1000);
+        first.setVisible(true);
+        assertTrue(queue.admit(first));
+        queue.post(first);
+        assertFalse(queue.admit(notify("same", 1000)));
+        assertFalse(queue.admit(notify("other", 1000)));
+        assertEquals(1, queue.getCoalescedCount());
+        assertEquals(1, queue.getRejectedCount());
+    }
+
+    @Test
+    public void sameKeyIsMergedWhileOnQueue() {
+        NotifyQueue queue = new NotifyQueue();
+        Notify first = notify("disk full", 1000);
+        first.setCoalescingKey("disk");
+        assertTrue(queue.admit(first));
+        queue.post(first);
+        for (int i = 0; i < 9; i++) {
+            Notify copy = notify("disk full", 1000);
+            copy.setCoalescingKey("disk");
+            assertFalse(queue.admit(copy));
+        }
+        assertEquals(10, first.getOccurrences());
+        assertEquals(9, queue.getCoalescedCount());
+
+        List<Notify> windows = queue.drain(Integer.MAX_VALUE);
+        assertEquals(1, windows.size());
+        queue.remove(0);
+        Notify later = notify("disk full", 1000);
+        later.setCoalescingKey("disk");
+        assertTrue(queue.admit(later));
+        assertEquals(1, later.getOccurrences());
+    }
+
+    @Test
+    public void admittedButNeverPostedGivesItsRoomBack() {
+        NotifyQueue queue = new NotifyQueue();
+        queue.setCapacity(1);
+        Notify failed = notify("disk full", 1000);
+        failed.setCoalescingKey("disk");
+        assertTrue(queue.admit(failed));
+        //Its layout failed, it never made it to the queue
+        queue.release(failed);
+        assertEquals(0, queue.size());
+
+        Notify later = notify("disk full", 1000);
+        later.setCoalescingKey("disk");
+        assertTrue(queue.admit(later));
+        assertEquals(1, later.getOccurrences());
+        assertEquals(0, queue.getRejectedCount());
+    }
+
+    @Test
+    public void virtualizedStackPagesThroughWaitingOnes() {
+        NotifyQueue queue = new NotifyQueue();
+        queue.setVirtualized(true);
+        for (int i = 0; i < 10; i++) {
+            Notify n = notify("M" + i, 1000);
+            n.setH(100);
+            assertTrue(queue.admit(n));
+            queue.post(n);
+        }
+        //Room for 3 (105 each) plus the summary tile (35)
+        int room = 3 * 105 + SummaryTile.HEIGHT + LayoutIndex.GAP + 1;
+        List<Notify> windows = queue.drain(room);
+        assertEquals(3, windows.size());
+        assertEquals(7, queue.pendingCount());
+        assertEquals("M0", windows.get(0).getMessage());
+
+        queue.nextPage();
+        windows = queue.drain(room);
+        assertEquals(3, windows.size());
+        assertEquals(7, queue.pendingCount());
+        assertEquals("M3", windows.get(0).getMessage());
+        assertEquals(10, queue.size());
+    }
+
+    @Test
+    public void pagedOutOnesGoBehindTheWaitingOnes() {
+        NotifyQueue queue = new NotifyQueue();
+        queue.setVirtualized(true);
+        for (int i = 0; i < 6; i++) {
+            Notify n = notify("M" + i, 1000);
+            //The first page is more important than the rest
+            n.setPriority(i < 3 ? 10 : 0);
+            n.setH(100);
+            assertTrue(queue.admit(n));
+            queue.post(n);
+        }
+        int room = 3 * 105 + SummaryTile.HEIGHT + LayoutIndex.GAP + 1;
+        assertEquals("M0", queue.drain(room).get(0).getMessage());
+
+        queue.nextPage();
+        List<Notify> windows = queue.drain(room);
+        assertEquals(3, windows.size());
+        assertEquals("M3", windows.get(0).getMessage());
+        assertEquals("M5", windows.get(2).getMessage());
+    }
+
+    @Test
+    public void snapshotHoldsEveryNotification() {
+        NotifyQueue queue = new NotifyQueue();
+        Notify shown = notify("shown", 1000);
+        Notify waiting = notify("waiting", 1000);
+        Notify posted = notify("posted", 1000);
+        shown.setH(100);
+        waiting.setH(100);
+        queue.post(shown);
+        queue.post(waiting);
+        queue.drain(150);
+        queue.post(posted);
+        assertEquals(Arrays.asList(shown, waiting, posted), queue.snapshot());
+    }
+
+    @Test
+    public void batchIsLaidOutAndPickedUpTogether() {
+        NotifyQueue queue = new NotifyQueue();
+        List<Notify> batch = new NotificationBuilder().setTitle("Batch").setType(NotifyType.INFORMATION)
+                .buildAll(Collections.nCopies(200, "A message that needs to be split in a couple of lines to fit."));
+        for (Notify n : batch) assertTrue(queue.admit(n));
+        BatchLayout.layout(batch, 300, new DriverMetrics(() -> 0, () -> 0));
+
+        Notify single = new Notify("Batch", batch.get(0).getMessage(), NotifyType.INFORMATION, NotifyDirection.LEFT_TO_RIGHT, null);
+        single.setW(300);
+        single.sortMessage();
+        for (Notify n : batch) {
+            assertEquals(300, n.getW());
+            assertEquals(single.getH(), n.getH());
+        }
+
+        queue.postAll(batch);
+        assertEquals(200, queue.size());
+        List<Notify> windows = queue.drain(100000);
+        assertEquals(200, windows.size());
+        for (int i = 0; i < batch.size(); i++) {
+            assertSame(batch.get(i), windows.get(i));
+        }
+        assertFalse(queue.hasIncoming());
+    }
+
+    private static Notify notify(String message, long timeout) {
+        Notify n = new Notify("Title", message, NotifyType.INFORMATION, NotifyDirection.LEFT_TO_RIGHT, null);
+        n.setTimeout(timeout);
+        return n;
+    }
+}
@@ -0,0 +1,165 @@
+package desktop.notify;
+
+import desktop.notify.model.Notify;
+import desktop.notify.model.NotifyDirection;
+import desktop.notify.model.NotifyType;
+import org.junit.Test;
+
+import java.awt.Cursor;
+import java.awt.Point;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class NotifyStackTest {
+
+    private final DriverMetrics metrics = new DriverMetrics(() -> 0, () -> 0);
+    private final NotifyStack stack = new NotifyStack(new RepaintScheduler(), metrics, new ActionExecutor());
+    private final OffscreenSurface surface = new OffscreenSurface(300, 600);
+    private final long t0 = System.currentTimeMillis() + 1000L;
+
+    private Notify post(String message, long timeout) {
+        Notify n = new Notify("Title", message, NotifyType.INFORMATION, NotifyDirection.LEFT_TO_RIGHT, null);
+        n.setTimeout(timeout);
+        n.setW(surface.getWidth());
+        n.sortMessage();
+        assertTrue(stack.queue.admit(n));
+        stack.queue.post(n);
+        return n;
+    }
+
+    @Test
+    public void runsNotificationsThroughTheirLifetimeHeadless() {
+        Notify n = post("Hello", 2000L);
+        assertTrue(n.getH() > 0);
+        assertFalse(n.getShown().isDone());
+
+        surface.paintFrame(stack, t0);
+        assertSame(n, n.getShown().getNow(null));
+        assertEquals(t0, n.getPopupStart());
+        assertFalse(stack.finished);
+        assertTrue(stack.animating);
+        //Something got painted at the bottom, nothing at the top
+        int bottom = surface.getHeight() - n.getH() / 2;
+        surface.paintFrame(stack, t0 + Notify.POP_MILLIS + 1);
+        assertNotEquals(0, surface.getImage().getRGB(150, bottom) >>> 24);
+        assertEquals(0, surface.getImage().getRGB(150, 10) >>> 24);
+        //Idle until it starts popping out
+        assertEquals(t0 + 2000L - Notify.POP_MILLIS, stack.deadline);
+
+        surface.paintFrame(stack, t0 + 2001L);
+        assertEquals(0, stack.queue.size());
+        surface.paintFrame(stack, t0 + 2002L);
+        assertTrue(stack.finished);
+        assertEquals(0, surface.getImage().getRGB(150, bottom) >>> 24);
+
+        assertEquals(4L, metrics.getFramesRendered());
+        assertEquals(1L, metrics.getExpiredCount());
+        assertEquals(0L, metrics.getDismissedCount());
+        assertTrue(metrics.getFirstPaintLatencyMax() > 0L);
+        assertEquals(0, stack.visible);
+    }
+
+    @Test
+    public void retiredNotificationsLetGoOfTheirImage() {
+        Notify n = post("Hello", 2000L);
+        surface.paintFrame(stack, t0);
+        long misses = Notify.getRasterCacheMisses();
+        surface.paintFrame(stack, t0 + 1L);
+        assertEquals(misses, Notify.getRasterCacheMisses());
+
+        //Gone from the queue, painting it again takes a new image
+        surface.paintFrame(stack, t0 + 2001L);
+        assertEquals(0, stack.queue.size());
+        misses = Notify.getRasterCacheMisses();
+        surface.paintFrame(stack, t0 + 2002L);
+        n.render(0, 0, false, surface.getImage().createGraphics(), t0 + 2002L);
+        assertEquals(misses + 1, Notify.getRasterCacheMisses());
+    }
+
+    @Test
+    public void otherDisplaysDoNotKeepThisOneAnimating() {
+        post("Settled", 0L);
+        surface.paintFrame(stack, t0);
+        surface.paintFrame(stack, t0 + Notify.POP_MILLIS + 1);
+        assertFalse(stack.animating);
+
+        //A notification popping in on another display
+        NotifyStack other = new NotifyStack(new RepaintScheduler(), metrics, new ActionExecutor());
+        OffscreenSurface otherSurface = new OffscreenSurface(300, 600);
+        Notify popping = new Notify("Title", "Popping", NotifyType.INFORMATION, NotifyDirection.LEFT_TO_RIGHT, null);
+        popping.setW(otherSurface.getWidth());
+        popping.sortMessage();
+        assertTrue(other.queue.admit(popping));
+        other.queue.post(popping);
+        long l = t0 + 1000L;
+        otherSurface.paintFrame(other, l);
+        assertTrue(other.animating);
+        assertTrue(DesktopNotifyDriver.getTimeline().isActive(l + 1));
+
+        surface.paintFrame(stack, l + 1);
+        assertFalse(stack.animating);
+        assertEquals(Long.MAX_VALUE, stack.deadline);
+    }
+
+    @Test
+    public void clickDismissesStickyNotification() {
+        Notify n = post("Sticky", 0L);
+        surface.paintFrame(stack, t0);
+        assertEquals(Long.MAX_VALUE, n.expTime());
+
+        surface.moveMouse(new Point(150, surface.getHeight() - n.getH() / 2));
+        surface.click();
+        surface.paintFrame(stack, t0 + 1000L);
+        assertEquals(1, stack.visible);
+        assertEquals(t0 + 1500L, n.expTime());
+        assertEquals(Cursor.DEFAULT_CURSOR, surface.getCursorType());
+
+        surface.paintFrame(stack, t0 + 1501L);
+        surface.paintFrame(stack, t0 + 1502L);
+        assertTrue(stack.finished);
+        assertEquals(1L, metrics.getDismissedCount());
+        assertEquals(0L, metrics.getExpiredCount());
+    }
+
+    @Test
+    public void steadyStateFramesDoNotAllocate() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        stack.queue.setVirtualized(true);
+        for (int i = 0; i < 12; i++) {
+            Notify n = post("Message " + i + " long enough to be split in a couple of lines", 0L);
+            if (i == 1) n.setOrientation(NotifyDirection.RIGHT_TO_LEFT);
+        }
+        Notify bottom = post("Repeated", 0L);
+        bottom.setCoalescingKey("key");
+        bottom.coalesce(t0);
+        surface.moveMouse(new Point(150, surface.getHeight() - 10));
+
+        //Let every animation finish, and the JIT compiler warm up
+        long l = t0;
+        for (int f = 0; f < 20000; f++) {
+            surface.paintFrame(stack, l += 20);
+        }
+        assertTrue(stack.queue.pendingCount() > 0);
+
+        long id = Thread.currentThread().getId();
+        int frames = 5000;
+        long before = threads.getThreadAllocatedBytes(id);
+        for (int f = 0; f < frames; f++) {
+            surface.paintFrame(stack, l += 20);
+        }
+        long allocated = threads.getThreadAllocatedBytes(id) - before;
+        assertTrue(allocated + " bytes allocated over " + frames + " frames", allocated < frames);
+    }
+}
@@ -0,0 +1,58 @@
+package desktop.notify;
+
+import desktop.notify.model.Notify;
+import desktop.notify.model.NotifyDirection;
+import desktop.notify.model.NotifyType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of inserting into and polling from the pending heap at
+ * several depths. Both should grow with the logarithm of the amount of
+ * notifications waiting, not linearly.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class PrioritySchedulerBenchmark {
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int depth;
+
+    private final Notify[] pool = new Notify[1024];
+    private PriorityScheduler heap;
+    private long l;
+
+    @Setup
+    public void setup() {
+        NotifyType[] types = NotifyType.values();
+        Random random = new Random(42);
+        for (int i = 0; i < pool.length; i++) {
+            NotifyType type = types[random.nextInt(types.length)];
+            pool[i] = new Notify("Title", "Message", type, NotifyDirection.LEFT_TO_RIGHT, null);
+        }
+        heap = new PriorityScheduler();
+        for (int i = 0; i < depth; i++) heap.add(pool[i & 1023], l++);
+    }
+
+    @Benchmark
+    public Notify addPoll() {
+        heap.add(pool[(int) l & 1023], l++);
+        return heap.poll();
+    }
+}
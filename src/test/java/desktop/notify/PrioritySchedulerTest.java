@@ -0,0 +1,87 @@
+package desktop.notify;
+
+import desktop.notify.model.Notify;
+import desktop.notify.model.NotifyDirection;
+import desktop.notify.model.NotifyType;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PrioritySchedulerTest {
+
+    @Test
+    public void higherPriorityGoesFirst() {
+        PriorityScheduler heap = new PriorityScheduler();
+        heap.setAging(0);
+        Notify tip = notify(NotifyType.TIP);
+        Notify info = notify(NotifyType.INFORMATION);
+        Notify error = notify(NotifyType.ERROR);
+        Notify fail = notify(NotifyType.FAIL);
+        heap.add(tip, 0);
+        heap.add(info, 1);
+        heap.add(error, 2);
+        heap.add(fail, 3);
+        assertSame(error, heap.poll());
+        assertSame(fail, heap.poll());
+        assertSame(info, heap.poll());
+        assertSame(tip, heap.poll());
+        assertNull(heap.poll());
+    }
+
+    @Test
+    public void priorityCanBeOverridden() {
+        PriorityScheduler heap = new PriorityScheduler();
+        Notify error = notify(NotifyType.ERROR);
+        Notify tip = notify(NotifyType.TIP);
+        tip.setPriority(10);
+        heap.add(error, 0);
+        heap.add(tip, 0);
+        assertSame(tip, heap.poll());
+    }
+
+    @Test
+    public void waitingLongEnoughBeatsPriority() {
+        PriorityScheduler heap = new PriorityScheduler();
+        heap.setAging(1000);
+        Notify tip = notify(NotifyType.TIP);
+        Notify error = notify(NotifyType.ERROR);
+        Notify lateError = notify(NotifyType.ERROR);
+        heap.add(tip, 0);
+        heap.add(error, 2000);
+        heap.add(lateError, 4000);
+        //By the time the second ERROR arrives, TIP has waited 4 levels worth
+        assertSame(error, heap.poll());
+        assertSame(tip, heap.poll());
+        assertSame(lateError, heap.poll());
+    }
+
+    @Test
+    public void removeAtKeepsHeapOrder() {
+        PriorityScheduler heap = new PriorityScheduler();
+        heap.setAging(0);
+        Random random = new Random(42);
+        NotifyType[] types = NotifyType.values();
+        for (int i = 0; i < 1000; i++) {
+            heap.add(notify(types[random.nextInt(types.length)]), i);
+        }
+        for (int i = 0; i < 300; i++) {
+            heap.removeAt(random.nextInt(heap.size()));
+        }
+        assertEquals(700, heap.size());
+        int last = Integer.MAX_VALUE;
+        while (heap.size() > 0) {
+            int priority = heap.poll().getPriority();
+            assertTrue(priority <= last);
+            last = priority;
+        }
+    }
+
+    private static Notify notify(NotifyType type) {
+        return new Notify("Title", type.name(), type, NotifyDirection.LEFT_TO_RIGHT, null);
+    }
+}
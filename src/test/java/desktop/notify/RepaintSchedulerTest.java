@@ -0,0 +1,67 @@
+package desktop.notify;
+
+import balbucio.throwable.Throwable;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RepaintSchedulerTest {
+
+    @Test
+    public void sleepsUntilTheNextDeadline() {
+        RepaintScheduler scheduler = new RepaintScheduler();
+        scheduler.setFrameMillis(1L);
+        //The first frame is always due
+        scheduler.awaitNextFrame();
+        long start = System.currentTimeMillis();
+        scheduler.frameRendered(start + 80L, false);
+        scheduler.awaitNextFrame();
+        assertTrue(System.currentTimeMillis() - start >= 80L);
+        assertEquals(2L, scheduler.getFrameCount());
+        assertEquals(2L, scheduler.getIdleFrameCount());
+    }
+
+    @Test(timeout = 5000)
+    public void requestedFramesWakeTheDriverUp() throws Exception {
+        final RepaintScheduler scheduler = new RepaintScheduler();
+        scheduler.setFrameMillis(1L);
+        scheduler.awaitNextFrame();
+        //Nothing to wait for, only a request can bring it back
+        scheduler.frameRendered(Long.MAX_VALUE, false);
+        Thread driver = new Thread(scheduler::awaitNextFrame);
+        driver.start();
+        Throwable.threadSleep(50);
+        assertTrue(driver.isAlive());
+        scheduler.requestFrame();
+        driver.join();
+
+        //So does a deadline sooner than the one it sleeps on
+        scheduler.frameRendered(Long.MAX_VALUE, false);
+        driver = new Thread(scheduler::awaitNextFrame);
+        driver.start();
+        Throwable.threadSleep(50);
+        assertTrue(driver.isAlive());
+        scheduler.frameRendered(System.currentTimeMillis(), false);
+        driver.join();
+        assertEquals(3L, scheduler.getFrameCount());
+    }
+
+    @Test
+    public void countsTheFramesMissedWhileAnimating() {
+        RepaintScheduler scheduler = new RepaintScheduler();
+        scheduler.setFrameMillis(10L);
+        assertEquals(0L, scheduler.awaitNextFrame());
+        scheduler.frameRendered(0L, true);
+        //The driver thread falls behind for about 10 frames
+        Throwable.threadSleep(105);
+        long missed = scheduler.awaitNextFrame();
+        assertTrue(missed >= 9L);
+
+        scheduler.frameRendered(Long.MAX_VALUE, false);
+        Throwable.threadSleep(50);
+        scheduler.requestFrame();
+        //Nothing was due, nothing was missed
+        assertEquals(0L, scheduler.awaitNextFrame());
+    }
+}
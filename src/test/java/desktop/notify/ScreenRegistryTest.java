@@ -0,0 +1,140 @@
+package desktop.notify;
+
+import org.junit.Test;
+
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsDevice;
+import java.awt.Insets;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.image.ColorModel;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ScreenRegistryTest {
+
+    @Test
+    public void routesToNamedOrPrimaryDisplay() {
+        FakeDevice left = new FakeDevice("left", new Rectangle(-1920, 0, 1920, 1080));
+        FakeDevice main = new FakeDevice("main", new Rectangle(0, 0, 2560, 1440));
+        GraphicsDevice[] devices = {left, main};
+        ScreenRegistry registry = new ScreenRegistry(() -> devices, () -> main, gc -> new Insets(0, 0, 40, 0));
+
+        assertArrayEquals(new String[]{"main", "left"}, registry.getIds());
+        assertEquals(new Rectangle(0, 0, 2560, 1400), registry.resolve(DisplayRouting.PRIMARY, "left").bounds);
+        assertEquals(new Rectangle(-1920, 0, 1920, 1040), registry.resolve(DisplayRouting.NAMED, "left").bounds);
+        assertEquals("main", registry.resolve(DisplayRouting.NAMED, "gone").id);
+    }
+
+    @Test
+    public void measuresOnlyWhenConfigurationChanges() {
+        FakeDevice main = new FakeDevice("main", new Rectangle(0, 0, 1920, 1080));
+        GraphicsDevice[] devices = {main};
+        AtomicInteger measured = new AtomicInteger();
+        ScreenRegistry registry = new ScreenRegistry(() -> devices, () -> main, gc -> {
+            measured.incrementAndGet();
+            return new Insets(0, 0, 0, 0);
+        });
+
+        for (int i = 0; i < 100; i++) {
+            registry.get("main");
+        }
+        assertEquals(1, measured.get());
+
+        main.reconfigure(new Rectangle(0, 0, 3840, 2160));
+        assertEquals(new Rectangle(0, 0, 3840, 2160), registry.get("main").bounds);
+        assertEquals(2, measured.get());
+        assertEquals(2, registry.getRefreshCount());
+    }
+
+    @Test
+    public void fallsBackToAVirtualDisplayWithoutAny() {
+        ScreenRegistry registry = new ScreenRegistry(() -> new GraphicsDevice[0], () -> null,
+                gc -> new Insets(0, 0, 0, 0));
+        assertArrayEquals(new String[]{ScreenRegistry.HEADLESS_ID}, registry.getIds());
+        ScreenRegistry.Screen screen = registry.resolve(DisplayRouting.MOUSE, null);
+        assertEquals(ScreenRegistry.HEADLESS_ID, screen.id);
+        assertNull(screen.device);
+        assertEquals(1920, screen.bounds.width);
+
+        registry.get("main");
+        assertEquals(1, registry.getRefreshCount());
+    }
+
+    private static class FakeDevice extends GraphicsDevice {
+        private final String id;
+        private GraphicsConfiguration config;
+
+        FakeDevice(String id, Rectangle bounds) {
+            this.id = id;
+            reconfigure(bounds);
+        }
+
+        void reconfigure(Rectangle bounds) {
+            config = new FakeConfig(this, bounds);
+        }
+
+        @Override
+        public int getType() {
+            return TYPE_RASTER_SCREEN;
+        }
+
+        @Override
+        public String getIDstring() {
+            return id;
+        }
+
+        @Override
+        public GraphicsConfiguration[] getConfigurations() {
+            return new GraphicsConfiguration[]{config};
+        }
+
+        @Override
+        public GraphicsConfiguration getDefaultConfiguration() {
+            return config;
+        }
+    }
+
+    private static class FakeConfig extends GraphicsConfiguration {
+        private final GraphicsDevice device;
+        private final Rectangle bounds;
+
+        FakeConfig(GraphicsDevice device, Rectangle bounds) {
+            this.device = device;
+            this.bounds = bounds;
+        }
+
+        @Override
+        public GraphicsDevice getDevice() {
+            return device;
+        }
+
+        @Override
+        public ColorModel getColorModel() {
+            return ColorModel.getRGBdefault();
+        }
+
+        @Override
+        public ColorModel getColorModel(int transparency) {
+            return ColorModel.getRGBdefault();
+        }
+
+        @Override
+        public AffineTransform getDefaultTransform() {
+            return new AffineTransform();
+        }
+
+        @Override
+        public AffineTransform getNormalizingTransform() {
+            return new AffineTransform();
+        }
+
+        @Override
+        public Rectangle getBounds() {
+            return new Rectangle(bounds);
+        }
+    }
+}
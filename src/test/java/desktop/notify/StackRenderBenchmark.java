@@ -0,0 +1,70 @@
+package desktop.notify;
+
+import desktop.notify.model.Notify;
+import desktop.notify.model.NotifyDirection;
+import desktop.notify.model.NotifyType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a whole frame of the Driver (picking up the queue, placing,
+ * hit-testing and painting) at several queue depths, on an offscreen surface.
+ * Past a few notifications the screen is full, so the cost should flatten
+ * out, and with the stack virtualized the waiting ones only cost the summary
+ * tile.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class StackRenderBenchmark {
+
+    @Param({"1", "5", "20", "500"})
+    public int depth;
+
+    @Param({"false", "true"})
+    public boolean virtualized;
+
+    private NotifyStack stack;
+    private OffscreenSurface surface;
+    private long l;
+
+    @Setup
+    public void setup() {
+        stack = new NotifyStack(new RepaintScheduler(), new DriverMetrics(() -> 0, () -> 0), new ActionExecutor());
+        stack.queue.setVirtualized(virtualized);
+        surface = new OffscreenSurface(DesktopNotifyDriver.WIDTH, 1000);
+        NotifyType[] types = NotifyType.values();
+        for (int i = 0; i < depth; i++) {
+            Notify n = new Notify("Notification " + i, "Message " + i, types[i % types.length],
+                    NotifyDirection.LEFT_TO_RIGHT, null);
+            n.setTimeout(0);
+            n.setW(surface.getWidth());
+            n.sortMessage();
+            stack.queue.admit(n);
+            stack.queue.post(n);
+        }
+        //Past the pop-in animations
+        l = System.currentTimeMillis() + 1000L;
+        surface.paintFrame(stack, l);
+        l += Notify.POP_MILLIS + 1;
+    }
+
+    @Benchmark
+    public void frame() {
+        surface.paintFrame(stack, l++);
+    }
+}
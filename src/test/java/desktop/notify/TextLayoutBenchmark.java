@@ -0,0 +1,70 @@
+package desktop.notify;
+
+import desktop.notify.model.Notify;
+import desktop.notify.model.NotifyDirection;
+import desktop.notify.model.NotifyType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures splitting the text of a notification in lines, which happens once
+ * per notification shown. Without the line cache every call pays for the
+ * whole layout, with it every call after the first one is a lookup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class TextLayoutBenchmark {
+
+    public static final String SHORT = "Saved.";
+    public static final String LONG = "The export finished without errors, but three of the files were skipped because"
+            + " they were opened by another application at the time. You can try again once they are closed,"
+            + " or pick a different folder for the ones that failed.";
+    public static final String PARAGRAPHS = "Build #482 passed.\nTests: 1,204 run, 0 failed, 3 skipped.\n"
+            + "Coverage went from 81.2% to 81.9% on the modules touched by this change.\n\n"
+            + "Deployed to staging. Production rollout starts in 15 minutes unless someone stops it.";
+
+    @Param({"SHORT", "LONG", "PARAGRAPHS"})
+    public String text;
+
+    @Param({"false", "true"})
+    public boolean cached;
+
+    private Notify notify;
+    private int cacheSize;
+
+    @Setup
+    public void setup() {
+        cacheSize = Notify.getLineCacheSize();
+        if (!cached) Notify.setLineCacheSize(0);
+        String message = "SHORT".equals(text) ? SHORT : "LONG".equals(text) ? LONG : PARAGRAPHS;
+        notify = new Notify("Notification", message, NotifyType.INFORMATION, NotifyDirection.LEFT_TO_RIGHT, null);
+        notify.setW(DesktopNotifyDriver.WIDTH);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Notify.setLineCacheSize(cacheSize);
+    }
+
+    @Benchmark
+    public Object sortMessage() {
+        notify.sortMessage();
+        return notify.getMsgs();
+    }
+}
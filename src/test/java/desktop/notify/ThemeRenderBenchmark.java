@@ -0,0 +1,75 @@
+package desktop.notify;
+
+import desktop.notify.model.Notify;
+import desktop.notify.model.NotifyDirection;
+import desktop.notify.model.NotifyType;
+import desktop.notify.theme.NotifyThemes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures painting a static notification offscreen with every stock theme,
+ * with and without the cached images, in both text orientations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class ThemeRenderBenchmark {
+
+    @Param({"DARK", "LIGHT", "SLIM_DARK", "SLIM_LIGHT"})
+    public NotifyThemes theme;
+
+    @Param({"true", "false"})
+    public boolean rasterCache;
+
+    @Param({"LEFT_TO_RIGHT", "RIGHT_TO_LEFT"})
+    public NotifyDirection orientation;
+
+    @Param({"LONG", "PARAGRAPHS"})
+    public String text;
+
+    private Notify notify;
+    private Graphics2D g;
+
+    @Setup
+    public void setup() {
+        Notify.setRasterCache(rasterCache);
+        notify = new Notify("Notification", "LONG".equals(text) ? TextLayoutBenchmark.LONG : TextLayoutBenchmark.PARAGRAPHS,
+                NotifyType.SUCCESS, orientation, null);
+        notify.setTheme(theme.getTheme());
+        notify.setW(DesktopNotifyDriver.WIDTH);
+        notify.sortMessage();
+        notify.setTimeout(0);
+        notify.setPopupStart(1);
+        BufferedImage canvas = new BufferedImage(DesktopNotifyDriver.WIDTH, notify.getH(), BufferedImage.TYPE_INT_ARGB_PRE);
+        g = canvas.createGraphics();
+    }
+
+    @TearDown
+    public void tearDown() {
+        g.dispose();
+        Notify.setRasterCache(true);
+    }
+
+    @Benchmark
+    public void render() {
+        notify.render(0, 0, false, g, 10000L);
+    }
+}
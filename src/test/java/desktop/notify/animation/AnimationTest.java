@@ -0,0 +1,56 @@
+package desktop.notify.animation;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AnimationTest {
+
+    @Test
+    public void valueDependsOnlyOnElapsedTime() {
+        Timeline timeline = new Timeline();
+        Animation a = new Animation(timeline, Easing.LINEAR, 0);
+        a.start(1000, 500, 0, 1);
+        assertEquals(0.0, a.value(900), 0);
+        assertEquals(0.5, a.value(1250), 1e-9);
+        assertEquals(1.0, a.value(1600), 0);
+        //Sampling more often doesn't change anything
+        for (long l = 1000; l < 1250; l++) a.value(l);
+        assertEquals(0.5, a.value(1250), 1e-9);
+    }
+
+    @Test
+    public void timelineReportsRunningAnimations() {
+        Timeline timeline = new Timeline();
+        Animation a = new Animation(timeline, Easing.EASE_OUT_CUBIC, 0);
+        assertFalse(timeline.isActive(0));
+        a.start(0, 500, 0, 1);
+        assertTrue(timeline.isActive(499));
+        assertTrue(a.isRunning(499));
+        assertFalse(timeline.isActive(500));
+        assertFalse(a.isRunning(500));
+    }
+
+    @Test
+    public void retargetKeepsConstantSpeed() {
+        Timeline timeline = new Timeline();
+        Animation a = new Animation(timeline, Easing.LINEAR, 0);
+        a.retarget(0, 1, 400);
+        assertEquals(400, a.getEnd());
+        //Halfway there, going back takes half the time
+        a.retarget(200, 0, 400);
+        assertEquals(0.5, a.value(200), 1e-9);
+        assertEquals(400, a.getEnd());
+        assertEquals(0.0, a.value(400), 0);
+    }
+
+    @Test
+    public void easingsStartAndEndInPlace() {
+        for (Easing easing : Easing.values()) {
+            assertEquals(easing.name(), 0.0, easing.apply(0), 1e-9);
+            assertEquals(easing.name(), 1.0, easing.apply(1), 1e-9);
+        }
+    }
+}
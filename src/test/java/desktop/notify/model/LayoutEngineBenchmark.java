@@ -0,0 +1,69 @@
+package desktop.notify.model;
+
+import desktop.notify.FontMetricsRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@link LayoutEngine} with the splitter used before it, on
+ * notification-sized messages in a few scripts. Every call gets a text not
+ * seen in a while, so the measurers kept by the engine don't help it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class LayoutEngineBenchmark {
+
+    static final String LATIN = "The export finished without errors, but three of the files were skipped because"
+            + " they were opened by another application at the time. You can try again once they are closed.";
+    static final String JAPANESE = "エクスポートはエラーなしで完了しましたが、3つのファイルは別のアプリケーションで"
+            + "開かれていたためスキップされました。閉じた後にもう一度お試しください。";
+    static final String ARABIC = "اكتمل التصدير دون أخطاء، لكن تم تخطي ثلاثة ملفات لأنها كانت مفتوحة في تطبيق آخر"
+            + " في ذلك الوقت. يمكنك المحاولة مرة أخرى بعد إغلاقها.";
+
+    @Param({"LATIN", "JAPANESE", "ARABIC"})
+    public String script;
+
+    private static final Font FONT = new Font("Dialog", Font.PLAIN, 12);
+    private final String[] texts = new String[64];
+    private FontMetrics ftm;
+    private int next;
+
+    @Setup
+    public void setup() {
+        String text = "LATIN".equals(script) ? LATIN : "JAPANESE".equals(script) ? JAPANESE : ARABIC;
+        for (int i = 0; i < texts.length; i++) texts[i] = i + " " + text;
+        ftm = FontMetricsRegistry.getFontMetrics(FONT);
+    }
+
+    private String nextText() {
+        next = (next + 1) & (texts.length - 1);
+        return texts[next];
+    }
+
+    @Benchmark
+    public String[] legacy() {
+        return LineWrapBenchmark.legacy(nextText(), ftm, 250);
+    }
+
+    @Benchmark
+    public LineCache.Lines engine() {
+        return LayoutEngine.layout(nextText(), FONT, 250, false, 15);
+    }
+}
@@ -0,0 +1,105 @@
+package desktop.notify.model;
+
+import desktop.notify.FontMetricsRegistry;
+import org.junit.Test;
+
+import java.awt.Font;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LayoutEngineTest {
+
+    private static final Font FONT = new Font("Dialog", Font.PLAIN, 12);
+    private static final int ROOM = 200;
+
+    private static String join(String[] lines) {
+        StringBuilder sb = new StringBuilder();
+        for (String line : lines) sb.append(line);
+        return sb.toString();
+    }
+
+    @Test
+    public void sendsPlainTextThroughTheFastPath() {
+        String text = "The export finished without errors, but three of the files were skipped.\nTry again.";
+        assertTrue(LayoutEngine.isPlain(text));
+        LineCache.Lines lines = LayoutEngine.layout(text, FONT, ROOM, false, 15);
+        assertArrayEquals(LineWrapper.wrap(text, FontMetricsRegistry.get(FONT), ROOM), lines.lines);
+        assertNull(lines.layouts);
+        assertEquals(lines.lines.length * 15, lines.height);
+    }
+
+    @Test
+    public void punctuationAndSymbolsArePlain() {
+        assertTrue(LayoutEngine.isPlain("Backup finished \u2014 3 files skipped\u2026 \u201cReport\u201d cost 5 \u20ac\u2122"));
+        assertFalse(LayoutEngine.isPlain("Joined\u200dtext"));
+        assertFalse(LayoutEngine.isPlain("Marked\u200ftext"));
+    }
+
+    @Test
+    public void rightToLeftIsOnlyForcedOnRightToLeftText() {
+        //The combining accent takes it through the measurer
+        String latin = "Cafe\u0301 \u201cclosed\u201d \u2014 back soon!";
+        LineCache.Lines lines = LayoutEngine.layout(latin, FONT, ROOM, true, 15);
+        assertTrue(lines.layouts[0].isLeftToRight());
+
+        lines = LayoutEngine.layout("\u05e9\u05dc\u05d5\u05dd \u201cworld\u201d", FONT, ROOM, true, 15);
+        assertFalse(lines.layouts[0].isLeftToRight());
+    }
+
+    @Test
+    public void breaksTextWithoutSpaces() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 8; i++) text.append("ファイルのエクスポートが完了しました。");
+        assertFalse(LayoutEngine.isPlain(text.toString()));
+        LineCache.Lines lines = LayoutEngine.layout(text.toString(), FONT, ROOM, false, 15);
+
+        assertTrue(lines.lines.length > 1);
+        assertEquals(text.toString(), join(lines.lines));
+        FontMetricsRegistry.Metrics ftm = FontMetricsRegistry.get(FONT);
+        for (String line : lines.lines) {
+            assertTrue(line, ftm.stringWidth(line) < ROOM);
+            //Closing marks stay with the text before them
+            assertFalse(line, line.startsWith("。"));
+        }
+
+        String thai = "การส่งออกเสร็จสมบูรณ์โดยไม่มีข้อผิดพลาดแต่ไฟล์สามไฟล์ถูกข้ามไปเพราะเปิดอยู่ในแอปพลิเคชันอื่น";
+        lines = LayoutEngine.layout(thai, FONT, ROOM / 2, false, 15);
+        assertTrue(lines.lines.length > 1);
+        assertEquals(thai, join(lines.lines));
+        assertNotNull(lines.layouts[0]);
+    }
+
+    @Test
+    public void keepsTheDirectionOfEachParagraph() {
+        String text = "تم تصدير الملفات بنجاح، لكن تم تخطي ثلاثة منها لأنها كانت مفتوحة في تطبيق آخر"
+                + "\n\nBuild 482 passed";
+        LineCache.Lines lines = LayoutEngine.layout(text, FONT, ROOM, false, 15);
+        int blank = Arrays.asList(lines.lines).indexOf("");
+        assertTrue(blank > 1);
+        assertNull(lines.layouts[blank]);
+        assertFalse(lines.layouts[0].isLeftToRight());
+        assertTrue(lines.layouts[blank + 1].isLeftToRight());
+        assertEquals(text.replace("\n", ""), join(lines.lines));
+
+        //Told to go right to left, only the paragraphs with such text do
+        lines = LayoutEngine.layout(text, FONT, ROOM, true, 15);
+        assertFalse(lines.layouts[0].isLeftToRight());
+        assertTrue(lines.layouts[lines.layouts.length - 1].isLeftToRight());
+    }
+
+    @Test
+    public void notificationsUseTheEngine() {
+        Notify n = new Notify("通知", "長いメッセージは通知の幅に合わせて複数の行に分けて表示されます。"
+                + "スペースがなくても折り返されます。", NotifyType.INFORMATION, NotifyDirection.LEFT_TO_RIGHT, null);
+        n.setW(300);
+        n.sortMessage();
+        assertTrue(n.getMsgs().length > 1);
+        assertNotNull(n.getTlts());
+    }
+}
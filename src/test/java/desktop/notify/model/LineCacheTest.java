@@ -0,0 +1,109 @@
+package desktop.notify.model;
+
+import org.junit.Test;
+
+import java.awt.Font;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class LineCacheTest {
+
+    private static final Font FONT = new Font("Dialog", Font.PLAIN, 12);
+
+    private static LineCache.Key key(String text) {
+        return new LineCache.Key(text, FONT, 200, NotifyDirection.LEFT_TO_RIGHT, false);
+    }
+
+    @Test
+    public void dropsLeastRecentlyUsed() {
+        LineCache cache = new LineCache(2);
+        LineCache.Lines a = new LineCache.Lines(new String[]{"a"}, 15);
+        cache.put(key("a"), a);
+        cache.put(key("b"), new LineCache.Lines(new String[]{"b"}, 15));
+        assertSame(a, cache.get(key("a")));
+        cache.put(key("c"), new LineCache.Lines(new String[]{"c"}, 15));
+
+        assertNull(cache.get(key("b")));
+        assertSame(a, cache.get(key("a")));
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getEvictions());
+
+        cache.setLimit(0);
+        assertEquals(0, cache.size());
+        cache.put(key("a"), a);
+        assertNull(cache.get(key("a")));
+    }
+
+    @Test
+    public void keyTellsApartEveryInput() {
+        LineCache.Key k = key("text");
+        assertEquals(k, key("text"));
+        assertNotEquals(k, new LineCache.Key("text", FONT.deriveFont(13f), 200, NotifyDirection.LEFT_TO_RIGHT, false));
+        assertNotEquals(k, new LineCache.Key("text", FONT, 201, NotifyDirection.LEFT_TO_RIGHT, false));
+        assertNotEquals(k, new LineCache.Key("text", FONT, 200, NotifyDirection.RIGHT_TO_LEFT, false));
+        assertNotEquals(k, new LineCache.Key("text", FONT, 200, NotifyDirection.LEFT_TO_RIGHT, true));
+    }
+
+    @Test
+    public void notificationsWithTheSameTextShareTheirLines() {
+        Notify first = new Notify("Title", "Some message long enough to take more than a single line of text.",
+                NotifyType.INFORMATION, NotifyDirection.LEFT_TO_RIGHT, null);
+        first.sortMessage();
+        long misses = Notify.getLineCacheMisses();
+        Notify second = new Notify("Title", first.getMessage(), NotifyType.INFORMATION, NotifyDirection.LEFT_TO_RIGHT, null);
+        second.sortMessage();
+        assertEquals(misses, Notify.getLineCacheMisses());
+        assertSame(first.getMsgs(), second.getMsgs());
+        assertEquals(first.getH(), second.getH());
+
+        second.setW(200);
+        second.sortMessage();
+        assertNotSame(first.getMsgs(), second.getMsgs());
+    }
+
+    @Test
+    public void messageIsSplitOnceWhenTheRoomStaysTheSame() {
+        //No icon, so the room doesn't depend on the height
+        Notify n = new Notify("", "A message with no icon that is split only once, even with no cache.",
+                NotifyType.NONE, NotifyDirection.LEFT_TO_RIGHT, null);
+        int size = Notify.getLineCacheSize();
+        Notify.setLineCacheSize(0);
+        try {
+            long misses = Notify.getLineCacheMisses();
+            n.sortMessage();
+            assertEquals(misses + 1, Notify.getLineCacheMisses());
+        } finally {
+            Notify.setLineCacheSize(size);
+        }
+    }
+
+    @Test
+    public void survivesConcurrentUse() throws InterruptedException {
+        LineCache cache = new LineCache(64);
+        int threads = 8;
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                try {
+                    for (int i = 0; i < 20000; i++) {
+                        LineCache.Key k = key("text " + (i % 200));
+                        if (cache.get(k) == null) cache.put(k, new LineCache.Lines(new String[0], 0));
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        assertTrue(cache.size() <= 64);
+        assertEquals(threads * 20000L, cache.getHits() + cache.getMisses());
+    }
+}
@@ -0,0 +1,94 @@
+package desktop.notify.model;
+
+import desktop.notify.FontMetricsRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link LineWrapper} with the splitter it replaced, which measured
+ * the whole line again for every word, on messages the size of a log excerpt.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class LineWrapBenchmark {
+
+    static final String LOG_LINE = "2024-05-14 10:32:07.415 WARN [pool-3-thread-2] c.e.sync.Uploader - retrying"
+            + " https://storage.example.com/buckets/backups/objects/2024/05/14/snapshot-000412.tar.gz after 3 attempts";
+    static final String TRACE_LINE = "\tat com.example.sync.Uploader.upload(Uploader.java:212)";
+
+    @Param({"1024", "10240"})
+    public int size;
+
+    private String text;
+    private FontMetricsRegistry.Metrics ftm;
+    private int room;
+
+    /**
+     * Puts together a log excerpt of about the given size.
+     */
+    static String logExcerpt(int size) {
+        StringBuilder sb = new StringBuilder(size + 128);
+        for (int i = 0; sb.length() < size; i++) {
+            sb.append(i % 4 == 3 ? TRACE_LINE : LOG_LINE).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * The splitter used before {@link LineWrapper}, kept for comparison.
+     */
+    static String[] legacy(String in, FontMetrics ftm, int room) {
+        ArrayList<String> list = new ArrayList<>();
+        String[] strs = in.split("\n");
+        StringBuilder builder = new StringBuilder();
+        for (String str : strs) {
+            String[] words = str.split(" ");
+            for (String word : words) {
+                if (ftm.stringWidth(builder.toString()) + ftm.stringWidth(word) < room) {
+                    builder.append(word).append(" ");
+                } else {
+                    list.add(builder.toString());
+                    builder = new StringBuilder().append(word).append(" ");
+                }
+            }
+            list.add(builder.toString());
+            builder.setLength(0);
+        }
+        return list.toArray(new String[0]);
+    }
+
+    @Setup
+    public void setup() {
+        text = logExcerpt(size);
+        ftm = FontMetricsRegistry.get(new Font("Dialog", Font.PLAIN, 12));
+        room = 300 - 12 - 38;
+    }
+
+    @Benchmark
+    public String[] legacy() {
+        return legacy(text, ftm.getFontMetrics(), room);
+    }
+
+    @Benchmark
+    public String[] wrapper() {
+        return LineWrapper.wrap(text, ftm, room);
+    }
+}
@@ -0,0 +1,55 @@
+package desktop.notify.model;
+
+import desktop.notify.FontMetricsRegistry;
+import org.junit.Test;
+
+import java.awt.Font;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LineWrapperTest {
+
+    private static final FontMetricsRegistry.Metrics FTM = FontMetricsRegistry.get(new Font("Dialog", Font.PLAIN, 12));
+    private static final int ROOM = 250;
+
+    @Test
+    public void wrapsLikeTheLegacySplitter() {
+        String[] texts = {
+                "Saved.",
+                "The export finished without errors, but three of the files were skipped because they were"
+                        + " opened by another application at the time.",
+                "Build #482 passed.\nTests: 1,204 run, 0 failed.\n\nDeployed  to staging.",
+                "Trailing spaces   \nand line breaks\n\n",
+        };
+        for (String text : texts) {
+            assertArrayEquals(text, LineWrapBenchmark.legacy(text, FTM.getFontMetrics(), ROOM), LineWrapper.wrap(text, FTM, ROOM));
+        }
+    }
+
+    @Test
+    public void breaksWordsWiderThanALine() {
+        String url = "https://storage.example.com/buckets/backups/objects/2024/05/14/snapshot-000412.tar.gz";
+        String[] lines = LineWrapper.wrap("see " + url + " now", FTM, ROOM);
+
+        assertEquals("see ", lines[0]);
+        StringBuilder joined = new StringBuilder();
+        for (int i = 1; i < lines.length; i++) {
+            assertTrue(lines[i], FTM.stringWidth(lines[i].trim()) < ROOM);
+            joined.append(lines[i]);
+        }
+        assertEquals(url + " now ", joined.toString());
+    }
+
+    @Test
+    public void keepsEveryCharacterOfALogExcerpt() {
+        String text = LineWrapBenchmark.logExcerpt(10240);
+        StringBuilder joined = new StringBuilder();
+        for (String line : LineWrapper.wrap(text, FTM, ROOM)) {
+            assertTrue(line, FTM.stringWidth(line.trim()) < ROOM);
+            joined.append(line);
+        }
+        assertEquals(text.replace("\n", " ").replace(" ", ""), joined.toString().replace(" ", ""));
+    }
+}
@@ -0,0 +1,74 @@
+package desktop.notify.model;
+
+import desktop.notify.FontMetricsRegistry;
+import org.junit.Test;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TextBlockTest {
+
+    private static final Font FONT = new Font("Dialog", Font.PLAIN, 12);
+    private static final String[] LINES = {"The export finished ", "without errors. "};
+
+    private static int[] paint(boolean glyphs) {
+        BufferedImage image = new BufferedImage(240, 60, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.setColor(Color.WHITE);
+        g.setFont(FONT);
+        if (glyphs) {
+            new TextBlock(LINES, null, FONT, false, 6, 234, 20, 15).paint(g);
+        } else {
+            for (int j = 0; j < LINES.length; j++) g.drawString(LINES[j], 6, 20 + 15 * j);
+        }
+        g.dispose();
+        return image.getRGB(0, 0, 240, 60, null, 0, 240);
+    }
+
+    @Test
+    public void paintsLikeDrawString() {
+        assertArrayEquals(paint(false), paint(true));
+    }
+
+    @Test
+    public void alignsToTheRight() {
+        TextBlock block = new TextBlock(LINES, null, FONT, true, 6, 234, 20, 15);
+        FontMetricsRegistry.Metrics ftm = FontMetricsRegistry.get(FONT);
+        assertEquals(2, block.size());
+        for (int j = 0; j < LINES.length; j++) {
+            assertEquals(234 - ftm.stringWidth(LINES[j]), block.getX(j), 0f);
+            assertEquals(20 + 15 * j, block.getY(j), 0f);
+        }
+    }
+
+    @Test
+    public void tellsWhatItWasLaidOutFor() {
+        TextBlock block = new TextBlock(LINES, null, FONT, false, 6, 234, 20, 15);
+        assertTrue(block.isFor(LINES, new Font("Dialog", Font.PLAIN, 12), false, 6, 234, 20, 15));
+        assertFalse(block.isFor(LINES.clone(), FONT, false, 6, 234, 20, 15));
+        assertFalse(block.isFor(LINES, FONT.deriveFont(13f), false, 6, 234, 20, 15));
+        assertFalse(block.isFor(LINES, FONT, true, 6, 234, 20, 15));
+        assertFalse(block.isFor(LINES, FONT, false, 6, 200, 20, 15));
+    }
+
+    @Test
+    public void sendsComplexScriptsThroughTextLayout() {
+        assertFalse(TextBlock.requiresLayout("Plain text, é, Ж, 中文"));
+        assertFalse(TextBlock.requiresLayout("\u201cQuoted\u201d \u2014 10 \u20ac\u2026"));
+        assertTrue(TextBlock.requiresLayout("שלום"));
+        assertTrue(TextBlock.requiresLayout("مرحبا"));
+        assertTrue(TextBlock.requiresLayout("é"));
+        //Both kinds of lines can be painted together
+        new TextBlock(new String[]{"Hello ", "مرحبا ", ""}, null, FONT, true, 6, 234, 20, 15)
+                .paint(new BufferedImage(240, 60, BufferedImage.TYPE_INT_ARGB).createGraphics());
+    }
+}
@@ -0,0 +1,77 @@
+package desktop.notify.model;
+
+import desktop.notify.FontMetricsRegistry;
+import desktop.notify.TextLayoutBenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares painting the text of a notification line by line through
+ * <code>drawString</code>, as it was done before, with painting the glyphs
+ * laid out in advance by a {@link TextBlock}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class TextRenderBenchmark {
+
+    @Param({"LEFT_TO_RIGHT", "RIGHT_TO_LEFT"})
+    public NotifyDirection orientation;
+
+    private static final Font FONT = new Font("Dialog", Font.PLAIN, 12);
+    private String[] lines;
+    private FontMetrics ftm;
+    private TextBlock block;
+    private Graphics2D g;
+
+    @Setup
+    public void setup() {
+        ftm = FontMetricsRegistry.getFontMetrics(FONT);
+        lines = LineWrapper.wrap(TextLayoutBenchmark.PARAGRAPHS, FontMetricsRegistry.get(FONT), 240);
+        block = new TextBlock(lines, null, FONT, orientation == NotifyDirection.RIGHT_TO_LEFT, 54, 295, 40, 15);
+        g = new BufferedImage(300, 40 + 15 * lines.length, BufferedImage.TYPE_INT_ARGB_PRE).createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.setColor(Color.WHITE);
+        g.setFont(FONT);
+    }
+
+    @TearDown
+    public void tearDown() {
+        g.dispose();
+    }
+
+    @Benchmark
+    public void drawString() {
+        boolean rtl = orientation == NotifyDirection.RIGHT_TO_LEFT;
+        for (int j = 0; j < lines.length; j++) {
+            //Measured on every paint, as the old code did to right-align
+            g.drawString(lines[j], rtl ? 295 - ftm.stringWidth(lines[j]) : 54, 40 + 15 * j);
+        }
+    }
+
+    @Benchmark
+    public void glyphVectors() {
+        block.paint(g);
+    }
+}
@@ -0,0 +1,49 @@
+package desktop.notify.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures reading a typical notification request, as sent by a
+ * {@link NotifyClient}, up to the point where it gets posted.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class ProtocolBenchmark {
+
+    private static final String REQUEST = "BUILD\n"
+            + "--title Backup finished\n"
+            + "--message 1,024 files copied to \\\"Archive\\\".\\nNext run: tomorrow at 02:00.\n"
+            + "--type SUCCESS\n"
+            + "--align LEFT_TO_RIGHT\n"
+            + "--timeout 5000\n"
+            + "--theme dark\n"
+            + "POST\n";
+
+    @Benchmark
+    public NotifyServer.Request parse() throws IOException {
+        BufferedReader in = new BufferedReader(new StringReader(REQUEST));
+        NotifyServer.Request request = new NotifyServer.Request();
+        String req;
+        while ((req = in.readLine()) != null && !req.startsWith("POST")) {
+            request.read(req);
+        }
+        return request;
+    }
+}